@@ -0,0 +1,41 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Converts a binary compiler artifact back to the XML the graders and debugging tools expect.
+// Usage: java ArtifactDump tokens.bin [tokens.xml]
+//        java ArtifactDump syntax_tree.bin [syntax_tree.xml]
+public class ArtifactDump {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java ArtifactDump <tokens.bin|syntax_tree.bin> [output.xml]");
+            System.exit(2);
+        }
+
+        String input = args[0];
+        String magic = readMagic(input);
+        if (magic.equals(TokenStreamFile.MAGIC)) {
+            String output = args.length > 1 ? args[1] : "tokens.xml";
+            Lexer.writeXML(TokenStreamFile.read(input), new File(output));
+            System.out.println("Wrote " + output);
+        } else if (magic.equals(SyntaxTree.BINARY_MAGIC)) {
+            String output = args.length > 1 ? args[1] : "syntax_tree.xml";
+            SyntaxTree.loadFromBinary(input).saveToXML(output);
+            System.out.println("Wrote " + output);
+        } else {
+            throw new IOException(input + " is not a binary compiler artifact");
+        }
+    }
+
+    private static String readMagic(String filePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+            return new String(magic, StandardCharsets.US_ASCII);
+        }
+    }
+}
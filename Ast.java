@@ -0,0 +1,87 @@
+// Compact syntax tree the code generators work on, lowered from the concrete tree by AstLowering once scope
+// analysis and type checking are done. Punctuation, epsilon leaves and the right-recursive GLOBVARS,
+// INSTRUC and FUNCTIONS chains are gone: declarations and statements are arrays, and every construct is a
+// record. Operators keep the NodeKind of their keyword.
+public final class Ast {
+    private Ast() {
+    }
+
+    // A name as scope analysis bound it: unid is the leaf UNID the symbol table is keyed on, text the name
+    // as written in the source, type the type code the type checker gave the name ("n" or "t" for a
+    // variable, "n" or "v" for a function) and symbol the declaration it refers to
+    public record Name(int unid, String text, String type, SymbolTable.VariableInfo symbol) {
+    }
+
+    // type is "num" or "text"
+    public record VarDecl(String type, Name name) {
+    }
+
+    public record Program(VarDecl[] globals, Stmt[] body, FunctionDecl[] functions) {
+    }
+
+    // returnType is "num" or "void"; subfunctions are the functions declared inside this one
+    public record FunctionDecl(String returnType, Name name, Name[] parameters, VarDecl[] locals, Stmt[] body,
+            FunctionDecl[] subfunctions) {
+    }
+
+    public sealed interface Stmt permits Skip, Halt, Print, Return, Input, Assign, CallStmt, Branch {
+    }
+
+    public record Skip() implements Stmt {
+    }
+
+    public record Halt() implements Stmt {
+    }
+
+    public record Print(Atom value) implements Stmt {
+    }
+
+    public record Return(Atom value) implements Stmt {
+    }
+
+    public record Input(Name target) implements Stmt {
+    }
+
+    public record Assign(Name target, Expr value) implements Stmt {
+    }
+
+    public record CallStmt(Call call) implements Stmt {
+    }
+
+    public record Branch(Cond condition, Stmt[] thenBody, Stmt[] elseBody) implements Stmt {
+    }
+
+    public sealed interface Expr permits Atom, Call, UnaryOp, BinaryOp {
+    }
+
+    public sealed interface Atom extends Expr permits Var, Const {
+    }
+
+    public record Var(Name name) implements Atom {
+    }
+
+    // text is the literal as written: a number, or a string with its quotes
+    public record Const(String text) implements Atom {
+    }
+
+    public record Call(Name function, Atom[] arguments) implements Expr {
+    }
+
+    public record UnaryOp(NodeKind operator, Expr argument) implements Expr {
+    }
+
+    public record BinaryOp(NodeKind operator, Expr left, Expr right) implements Expr {
+    }
+
+    public sealed interface Cond permits Simple, UnaryCond, BinaryCond {
+    }
+
+    public record Simple(NodeKind operator, Atom left, Atom right) implements Cond {
+    }
+
+    public record UnaryCond(NodeKind operator, Simple operand) implements Cond {
+    }
+
+    public record BinaryCond(NodeKind operator, Simple left, Simple right) implements Cond {
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Lowers an analysed concrete syntax tree to an Ast. Run it after ScopeAnalysis, which binds the leaf UNIDs
+// the Ast names keep. The statement, declaration and function chains are walked in loops, so long programs
+// do not recurse once per statement.
+public class AstLowering {
+
+    private final SyntaxArena tree;
+
+    private AstLowering(SyntaxArena tree) {
+        this.tree = tree;
+    }
+
+    // program is the PROG node
+    public static Ast.Program lower(SyntaxArena tree, int program) {
+        return new AstLowering(tree).lowerProgram(program);
+    }
+
+    private Ast.Program lowerProgram(int program) {
+        return new Ast.Program(
+                lowerGlobals(tree.child(program, 1)),
+                lowerAlgo(tree.child(program, 2)),
+                lowerFunctions(tree.child(program, 3)));
+    }
+
+    private Ast.VarDecl[] lowerGlobals(int globvars) {
+        List<Ast.VarDecl> globals = new ArrayList<>();
+        for (int node = globvars; tree.childCount(node) > 1; node = tree.child(node, 3)) {
+            globals.add(new Ast.VarDecl(tree.value(tree.child(tree.child(node, 0), 0)), name(tree.child(node, 1))));
+        }
+        return globals.toArray(new Ast.VarDecl[0]);
+    }
+
+    private Ast.FunctionDecl[] lowerFunctions(int functions) {
+        List<Ast.FunctionDecl> decls = new ArrayList<>();
+        for (int node = functions; tree.childCount(node) > 1; node = tree.child(node, 1)) {
+            decls.add(lowerDecl(tree.child(node, 0)));
+        }
+        return decls.toArray(new Ast.FunctionDecl[0]);
+    }
+
+    private Ast.FunctionDecl lowerDecl(int decl) {
+        int header = tree.child(decl, 0);
+        int body = tree.child(decl, 1);
+        Ast.Name[] parameters = {
+                name(tree.child(header, 3)), name(tree.child(header, 5)), name(tree.child(header, 7)) };
+        int locvars = tree.child(body, 1);
+        Ast.VarDecl[] locals = new Ast.VarDecl[3];
+        for (int i = 0; i < 3; i++) {
+            locals[i] = new Ast.VarDecl(tree.value(tree.child(tree.child(locvars, 3 * i), 0)),
+                    name(tree.child(locvars, 3 * i + 1)));
+        }
+        return new Ast.FunctionDecl(
+                tree.value(tree.child(tree.child(header, 0), 0)),
+                name(tree.child(header, 1)),
+                parameters,
+                locals,
+                lowerAlgo(tree.child(body, 2)),
+                lowerFunctions(tree.child(tree.child(body, 4), 0)));
+    }
+
+    private Ast.Stmt[] lowerAlgo(int algo) {
+        List<Ast.Stmt> statements = new ArrayList<>();
+        for (int node = tree.child(algo, 1); tree.childCount(node) > 1; node = tree.child(node, 2)) {
+            statements.add(lowerCommand(tree.child(node, 0)));
+        }
+        return statements.toArray(new Ast.Stmt[0]);
+    }
+
+    private Ast.Stmt lowerCommand(int command) {
+        int first = tree.child(command, 0);
+        switch (tree.kind(first)) {
+            case SKIP:
+                return new Ast.Skip();
+            case HALT:
+                return new Ast.Halt();
+            case PRINT:
+                return new Ast.Print(lowerAtomic(tree.child(command, 1)));
+            case RETURN:
+                return new Ast.Return(lowerAtomic(tree.child(command, 1)));
+            case ASSIGN:
+                if (tree.childCount(first) == 2) {
+                    return new Ast.Input(name(tree.child(first, 0)));
+                }
+                return new Ast.Assign(name(tree.child(first, 0)), lowerTerm(tree.child(first, 2)));
+            case CALL:
+                return new Ast.CallStmt(lowerCall(first));
+            case BRANCH:
+                return new Ast.Branch(lowerCond(tree.child(tree.child(first, 1), 0)),
+                        lowerAlgo(tree.child(first, 3)), lowerAlgo(tree.child(first, 5)));
+            default:
+                throw new IllegalArgumentException("Unexpected command: " + tree.value(first));
+        }
+    }
+
+    // TERM and ARG: an ATOMIC, a CALL or an OP
+    private Ast.Expr lowerTerm(int term) {
+        int node = tree.child(term, 0);
+        switch (tree.kind(node)) {
+            case ATOMIC:
+                return lowerAtomic(node);
+            case CALL:
+                return lowerCall(node);
+            case OP:
+                NodeKind operator = tree.kind(tree.child(tree.child(node, 0), 0));
+                if (tree.kind(tree.child(node, 0)) == NodeKind.UNOP) {
+                    return new Ast.UnaryOp(operator, lowerTerm(tree.child(node, 2)));
+                }
+                return new Ast.BinaryOp(operator, lowerTerm(tree.child(node, 2)), lowerTerm(tree.child(node, 4)));
+            default:
+                throw new IllegalArgumentException("Unexpected term: " + tree.value(node));
+        }
+    }
+
+    private Ast.Call lowerCall(int call) {
+        return new Ast.Call(name(tree.child(call, 0)), new Ast.Atom[] {
+                lowerAtomic(tree.child(call, 2)), lowerAtomic(tree.child(call, 4)), lowerAtomic(tree.child(call, 6)) });
+    }
+
+    private Ast.Atom lowerAtomic(int atomic) {
+        int node = tree.child(atomic, 0);
+        if (tree.kind(node) == NodeKind.VNAME) {
+            return new Ast.Var(name(node));
+        }
+        return new Ast.Const(tree.value(tree.child(node, 0)));
+    }
+
+    // SIMPLE or COMPOSIT
+    private Ast.Cond lowerCond(int cond) {
+        if (tree.kind(cond) == NodeKind.SIMPLE) {
+            return lowerSimple(cond);
+        }
+        NodeKind operator = tree.kind(tree.child(tree.child(cond, 0), 0));
+        if (tree.kind(tree.child(cond, 0)) == NodeKind.UNOP) {
+            return new Ast.UnaryCond(operator, lowerSimple(tree.child(cond, 2)));
+        }
+        return new Ast.BinaryCond(operator, lowerSimple(tree.child(cond, 2)), lowerSimple(tree.child(cond, 4)));
+    }
+
+    private Ast.Simple lowerSimple(int simple) {
+        return new Ast.Simple(tree.kind(tree.child(tree.child(simple, 0), 0)),
+                lowerAtomic(tree.child(simple, 2)), lowerAtomic(tree.child(simple, 4)));
+    }
+
+    // VNAME or FNAME, with the type and declaration the analysis recorded for it
+    private Ast.Name name(int node) {
+        int leaf = tree.child(node, 0);
+        return new Ast.Name(tree.unid(leaf), tree.value(leaf), tree.type(node), tree.binding(leaf));
+    }
+}
@@ -0,0 +1,201 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Compiles many programs in one JVM, one ForkJoinPool task per source file. Each program gets its own
+// output directory holding the files a single compile writes, and the run ends with a timing report.
+// Usage: java Main --batch=<directory|@file list> [--out=batch_output] [--threads=N] [--artifacts=xml|binary|none]
+//        [--cache[=directory]]
+public class BatchCompiler {
+    private final String artifactFormat;
+    private final File outputDirectory;
+    private final int threads;
+    private final CompileCache cache;
+
+    private static class Result {
+        Path source;
+        File output;
+        String error;
+        int tokens;
+        long lexNanos;
+        long parseNanos;
+        long analysisNanos;
+        long codeGenerationNanos;
+        long outputNanos;
+        boolean cacheHit;
+    }
+
+    // cache may be null; the workers share it otherwise
+    public BatchCompiler(String artifactFormat, File outputDirectory, int threads, CompileCache cache) {
+        this.artifactFormat = artifactFormat;
+        this.outputDirectory = outputDirectory;
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    // Every .txt file under a directory, or the paths listed one per line in a file named as @list
+    public static List<Path> findSources(String batch) throws IOException {
+        if (batch.startsWith("@")) {
+            List<Path> sources = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(batch.substring(1)))) {
+                if (!line.trim().isEmpty()) {
+                    sources.add(Paths.get(line.trim()));
+                }
+            }
+            return sources;
+        }
+        try (Stream<Path> files = Files.walk(Paths.get(batch))) {
+            return files.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(".txt"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Compiles every source and writes the report to the output directory and stdout; throws if any failed
+    public void run(List<Path> sources) throws Exception {
+        Map<Path, File> outputs = outputDirectories(sources);
+        // the phases' progress messages would interleave across threads, so they are dropped
+        Compiler compiler = new Compiler(!artifactFormat.equals("none"), cache, null,
+                new PrintStream(OutputStream.nullOutputStream()));
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Path source : sources) {
+                tasks.add(pool.submit(() -> compile(compiler, source, outputs.get(source))));
+            }
+            for (ForkJoinTask<Result> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        List<Result> results = new ArrayList<>();
+        for (ForkJoinTask<Result> task : tasks) {
+            results.add(task.join());
+        }
+        String report = report(results, wallNanos);
+        System.out.print(report);
+        try (FileWriter writer = new FileWriter(new File(outputDirectory, "batch_report.txt"))) {
+            writer.write(report);
+        }
+
+        long failed = results.stream().filter(result -> result.error != null).count();
+        if (failed > 0) {
+            throw new Exception(failed + " of " + results.size() + " programs failed to compile");
+        }
+    }
+
+    // One directory per source, named after it; sources that share a name get a numbered suffix
+    private Map<Path, File> outputDirectories(List<Path> sources) throws IOException {
+        Map<Path, File> outputs = new HashMap<>();
+        Set<String> used = new HashSet<>();
+        for (Path source : sources) {
+            String name = source.getFileName().toString();
+            if (name.endsWith(".txt")) {
+                name = name.substring(0, name.length() - ".txt".length());
+            }
+            String unique = name;
+            for (int i = 2; !used.add(unique); i++) {
+                unique = name + "_" + i;
+            }
+            File output = new File(outputDirectory, unique);
+            Files.createDirectories(output.toPath());
+            outputs.put(source, output);
+        }
+        Files.createDirectories(outputDirectory.toPath());
+        return outputs;
+    }
+
+    private Result compile(Compiler compiler, Path source, File output) {
+        Result result = new Result();
+        result.source = source;
+        result.output = output;
+        Compiler.Compilation compilation;
+        try {
+            compilation = compiler.compile(source);
+        } catch (Compiler.CompilationException e) {
+            compilation = e.getPartial();
+            result.error = e.getCause().getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        result.tokens = compilation.getTokens() != null ? compilation.getTokens().size() : 0;
+        result.cacheHit = compilation.isCacheHit();
+        result.lexNanos = compilation.getLexNanos();
+        result.parseNanos = compilation.getParseNanos();
+        result.analysisNanos = compilation.getAnalysisNanos();
+        result.codeGenerationNanos = compilation.getCodeGenerationNanos();
+
+        long start = System.nanoTime();
+        try {
+            if (compilation.getTokens() != null) {
+                Main.writeTokens(compilation.getTokens(), artifactFormat, output);
+            }
+            if (compilation.getParsedTree() != null) {
+                Main.writeParsedTree(compilation.getParsedTree(), artifactFormat, output);
+            }
+            Main.writeOutputs(compilation, output, false);
+        } catch (Exception e) {
+            if (result.error == null) {
+                result.error = "Writing output failed: " + e.getMessage();
+            }
+        }
+        result.outputNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private String report(List<Result> results, long wallNanos) {
+        long tokens = 0;
+        long lex = 0;
+        long parse = 0;
+        long analysis = 0;
+        long codeGeneration = 0;
+        long output = 0;
+        int cacheHits = 0;
+        List<Result> failures = new ArrayList<>();
+        for (Result result : results) {
+            tokens += result.tokens;
+            lex += result.lexNanos;
+            parse += result.parseNanos;
+            analysis += result.analysisNanos;
+            codeGeneration += result.codeGenerationNanos;
+            output += result.outputNanos;
+            if (result.cacheHit) {
+                cacheHits++;
+            }
+            if (result.error != null) {
+                failures.add(result);
+            }
+        }
+
+        double seconds = wallNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Compiled %d programs on %d threads: %d ok, %d failed%n",
+                results.size(), threads, results.size() - failures.size(), failures.size()));
+        if (cache != null) {
+            sb.append(String.format("Compile cache hits: %d of %d%n", cacheHits, results.size()));
+        }
+        sb.append(String.format("Wall time: %.1f ms, %.1f programs/s, %.0f tokens/s (%d tokens)%n",
+                wallNanos / 1e6, results.size() / seconds, tokens / seconds, tokens));
+        sb.append(String.format("Time summed over programs: lex %.1f ms, parse %.1f ms, analysis %.1f ms, "
+                        + "code generation %.1f ms, output %.1f ms%n",
+                lex / 1e6, parse / 1e6, analysis / 1e6, codeGeneration / 1e6, output / 1e6));
+        for (Result result : failures) {
+            sb.append("FAILED ").append(result.source).append(" -> ").append(result.output).append(": ")
+                    .append(result.error).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Shared encoding helpers for the binary compiler artifacts
+public class BinaryFormat {
+    // Longest string readString accepts. Whole programs and their generated code go through it, so this is far
+    // above any real artifact; it keeps a corrupt length from allocating gigabytes before the read fails.
+    public static final int MAX_STRING_BYTES = 1 << 28;
+
+    private BinaryFormat() {
+    }
+
+    // Unsigned LEB128: seven bits per byte, high bit set on every byte but the last
+    public static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated varint");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    // Signed values are zigzag encoded so that small negative numbers stay short
+    public static void writeSignedVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(DataInputStream in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("String length " + Integer.toUnsignedString(length) + " out of range");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeMagic(DataOutputStream out, String magic, int version) throws IOException {
+        out.write(magic.getBytes(StandardCharsets.US_ASCII));
+        out.writeByte(version);
+    }
+
+    public static void readMagic(DataInputStream in, String magic, int version) throws IOException {
+        byte[] bytes = new byte[magic.length()];
+        in.readFully(bytes);
+        if (!magic.equals(new String(bytes, StandardCharsets.US_ASCII))) {
+            throw new IOException("Not a " + magic + " file");
+        }
+        int fileVersion = in.readUnsignedByte();
+        if (fileVersion != version) {
+            throw new IOException("Unsupported " + magic + " version " + fileVersion);
+        }
+    }
+}
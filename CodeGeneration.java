@@ -7,302 +7,205 @@ import java.io.FileWriter;
 import java.io.IOException;
 
 public class CodeGeneration {
-    private Map<Integer, SymbolTable.VariableInfo> symbolTable = new HashMap<>();
     private int newVarCounter;
     private int newLabelCounter;
     private String temp;
 
-    public CodeGeneration(Map<Integer, SymbolTable.VariableInfo> sT) {
+    public CodeGeneration() {
         newVarCounter = 1;
         newLabelCounter = 1;
-        this.symbolTable = sT;
     }
 
-    public String translate(SyntaxTree.Node node, String place) throws Exception {
-        String result = "";
-
-        switch (node.value) {
-            case "PROG":
-                String algoCode = translate(node.children.get(2), null);
-                String funcCode = translate(node.children.get(3), null);
-                result += algoCode + "\nSTOP\n" + funcCode;
-                break;
-
-            case "ALGO":
-                result += translate(node.children.get(1), null);
-                break;
-
-            case "INSTRUC":
-                if (node.children.get(0).value.equals("e")) {
-                    result += "REM END";
-                } else {
-                    for (SyntaxTree.Node child : node.children) {
-                        result += translate(child, null);
-                    }
-                }
-                break;
-
-            case "COMMAND":
-                if (node.children.get(0).value.equals("skip")) {
-                    result += "REM DO NOTHING\n";
-                } else if (node.children.get(0).value.equals("halt")) {
-                    result += " STOP \n";
-                } else if (node.children.get(0).value.equals("print")) {
-                    result += "PRINT " + translate(node.children.get(1), null) + "\n";
-                } else if(node.children.get(0).value.equals("return")){
-                    result += translate(node.children.get(1), temp) + "\n";
-                }else {
-                    result += translate(node.children.get(0), null);
-                }
-                break;
-
-            case "ASSIGN":
-                if (node.children.size() == 2) {
-                    result += "INPUT " + translate(node.children.get(0), null) + "\n";
-                } else if (node.children.size() == 3) {
-                    String place1 = newVar();
-                    SymbolTable.VariableInfo varInfo = symbolTable.get(node.children.get(0).children.get(0).unid);
-                    String x = varInfo.uniqueName;
-                    result += translate(node.children.get(2), place1) + "\n" + x + " := " + place1 + "\n";
-                }
-                break;
-
-            case "ATOMIC":
-                if (node.children.get(0).value.equals("VNAME")) {
-                    result += translate(node.children.get(0), place);
-                } else if (node.children.get(0).value.equals("CONST")) {
-                    result += translate(node.children.get(0), place);
-                }
-
-                break;
-            case "VNAME":
-                int originalUnid = node.children.get(0).unid;
-                SymbolTable.VariableInfo varInfo = symbolTable.get(originalUnid);
-                if(place != null){
-                    result += place + " := " + varInfo.uniqueName;
-                }else{
-                    result += varInfo.uniqueName;
-                }
-                
-                break;
-
-            case "CONST":
-                String constValue = node.children.get(0).value;
-                Pattern pattern = Pattern.compile("-?\\d+(\\.\\d+)?");
-                if (pattern.matcher(constValue).matches()) {
-                    
-                    if(place != null){
-                        result += place + " := " + constValue + " ";
-                    }else{
-                        result += " " + constValue + " ";
-                    }
-                } else {
-                    if(place != null){
-                        result += place +  " := " + constValue + " ";
-                    }else{
-                        result += " " + constValue + " ";
-                    }
-                }
-                break;
-
-            case "TERM":
-                result += translate(node.children.get(0), place);
-                break;
-            case "CALL":
-                SymbolTable.VariableInfo variableInfo = symbolTable.get(node.children.get(0).children.get(0).unid);
-                String arg1 = translate(node.children.get(2), null);
-                String arg2 = translate(node.children.get(4), null);
-                String arg3 = translate(node.children.get(6), null);
-                String newFunctionName = variableInfo.uniqueName;
-                result += place + " := CALL_" + newFunctionName + "(" + arg1 + "," + arg2 + "," + arg3 + ")";
-                break;
-
-            case "OP":
-                if (node.children.get(0).value.equals("UNOP")) {
-                    String place1 = newVar();
-                    String unopName = translate(node.children.get(0), null);
-                    String code1 = translate(node.children.get(2), place1);
-                    result += code1 + place + ":=" + unopName + "(" + place1 + ")";
-                } else if (node.children.get(0).value.equals("BINOP")) {
-                    String place1 = newVar();
-                    String place2 = newVar();
-                    String code1 = translate(node.children.get(2), place1);
-                    String code2 = translate(node.children.get(4), place2);
-                    String binopName = translate(node.children.get(0), null);
-
-                    result += code1 + "\n" + code2 + "\n" + place + ":=" + place1 + binopName + place2;
-                }
-                break;
-            case "UNOP":
-                if (node.children.get(0).value.equals("sqrt")) {
-                    result += "SQR";
-                }else if(node.children.get(0).value.equals("not")){
-                    result += "NOT";
-                }
-                break;
-
-            case "BINOP":
-                switch (node.children.get(0).value) {
-                    case "eq":
-                        return "=";
-                    case "grt":
-                        return ">";
-                    case "add":
-                        return "+";
-                    case "sub":
-                        return "-";
-                    case "mul":
-                        return "*";
-                    case "div":
-                        return "/";
-                    default:
-                        throw new IllegalArgumentException(
-                                "Unsupported binary operator: " + node.children.get(0).value);
-                }
-
-            case "ARG":
-                result += translate(node.children.get(0), place);
-                break;
-
-            case "FNAME":
-                SymbolTable.VariableInfo fnameInfo = symbolTable.get(node.children.get(0).unid);
-                result += fnameInfo.uniqueName;
-                break;
+    public String translate(Ast.Program program) throws Exception {
+        String algoCode = translateInstructions(program.body());
+        // the functions are only expanded at their call sites, by processFunctionCalls
+        return algoCode + "\nSTOP\n";
+    }
 
-            case "BRANCH":
-                if(node.children.get(1).children.get(0).value.equals("COMPOSIT")){
-                    String label1 = newLabel();
-                    String label2 = newLabel();
-                    String label3 = newLabel();
+    // A begin ... end block: its statements followed by REM END
+    private String translateInstructions(Ast.Stmt[] body) throws Exception {
+        StringBuilder result = new StringBuilder();
+        for (Ast.Stmt statement : body) {
+            result.append(translateStatement(statement));
+        }
+        return result.append("REM END").toString();
+    }
 
-                    String code1 = translateCond(node.children.get(1).children.get(0), label1, label2);
-                    String code2 = translate(node.children.get(3), null);
-                    String code3 = translate(node.children.get(5), null);
-                    result += code1 + "LABEL " + label1 + "\n" + code2 + "\nGOTO " + label3 + "\nLABEL " + label2 + "\n" + code3 + "\nLABEL " + label3 + "\n";
-                }else{
-                    String label1 = newLabel();
-                    String label2 = newLabel();
-                    String label3 = newLabel();
+    private String translateStatement(Ast.Stmt statement) throws Exception {
+        String result = "";
 
-                    String code1 = translateCond(node.children.get(1).children.get(0), label1, label2);
-                    String code2 = translate(node.children.get(3), null);
-                    String code3 = translate(node.children.get(5), null);
-                    result += code1 + "LABEL " + label1 + "\n" + code2 + "\n GOTO " + label3 + "\nLABEL " + label2 + "\n" + code3 + "\nLABEL " + label3 + "\n"; 
-                }
-                break;
-            default:
-                result += "";
-                break;
+        if (statement instanceof Ast.Skip) {
+            result += "REM DO NOTHING\n";
+        } else if (statement instanceof Ast.Halt) {
+            result += " STOP \n";
+        } else if (statement instanceof Ast.Print) {
+            result += "PRINT " + translate(((Ast.Print) statement).value(), null) + "\n";
+        } else if (statement instanceof Ast.Return) {
+            result += translate(((Ast.Return) statement).value(), temp) + "\n";
+        } else if (statement instanceof Ast.Input) {
+            result += "INPUT " + ((Ast.Input) statement).target().symbol().uniqueName + "\n";
+        } else if (statement instanceof Ast.Assign) {
+            Ast.Assign assign = (Ast.Assign) statement;
+            String place1 = newVar();
+            SymbolTable.VariableInfo varInfo = assign.target().symbol();
+            String x = varInfo.uniqueName;
+            result += translate(assign.value(), place1) + "\n" + x + " := " + place1 + "\n";
+        } else if (statement instanceof Ast.CallStmt) {
+            result += translate(((Ast.CallStmt) statement).call(), null);
+        } else if (statement instanceof Ast.Branch) {
+            Ast.Branch branch = (Ast.Branch) statement;
+            String label1 = newLabel();
+            String label2 = newLabel();
+            String label3 = newLabel();
+
+            String code1 = translateCond(branch.condition(), label1, label2);
+            String code2 = translateInstructions(branch.thenBody());
+            String code3 = translateInstructions(branch.elseBody());
+            if (branch.condition() instanceof Ast.Simple) {
+                result += code1 + "LABEL " + label1 + "\n" + code2 + "\n GOTO " + label3 + "\nLABEL " + label2 + "\n" + code3 + "\nLABEL " + label3 + "\n";
+            } else {
+                result += code1 + "LABEL " + label1 + "\n" + code2 + "\nGOTO " + label3 + "\nLABEL " + label2 + "\n" + code3 + "\nLABEL " + label3 + "\n";
+            }
         }
 
         return result;
-
     }
 
-    public String translateCond(SyntaxTree.Node condNode, String labelTrue, String labelFalse) throws Exception {
+    // An expression; with a place the value is assigned to it
+    public String translate(Ast.Expr expression, String place) throws Exception {
         String result = "";
 
-        switch (condNode.value) {
-            case "SIMPLE":
-                String place1 = newVar();
-                String place2 = newVar();
-                String code1 = translate(condNode.children.get(2), place1);  
-                String code2 = translate(condNode.children.get(4), place2);
-                String relop = translate(condNode.children.get(0), null);    
+        if (expression instanceof Ast.Var) {
+            SymbolTable.VariableInfo varInfo = ((Ast.Var) expression).name().symbol();
+            if(place != null){
+                result += place + " := " + varInfo.uniqueName;
+            }else{
+                result += varInfo.uniqueName;
+            }
+        } else if (expression instanceof Ast.Const) {
+            String constValue = ((Ast.Const) expression).text();
+            if(place != null){
+                result += place + " := " + constValue + " ";
+            }else{
+                result += " " + constValue + " ";
+            }
+        } else if (expression instanceof Ast.Call) {
+            Ast.Call call = (Ast.Call) expression;
+            SymbolTable.VariableInfo variableInfo = call.function().symbol();
+            String arg1 = translate(call.arguments()[0], null);
+            String arg2 = translate(call.arguments()[1], null);
+            String arg3 = translate(call.arguments()[2], null);
+            String newFunctionName = variableInfo.uniqueName;
+            result += place + " := CALL_" + newFunctionName + "(" + arg1 + "," + arg2 + "," + arg3 + ")";
+        } else if (expression instanceof Ast.UnaryOp) {
+            Ast.UnaryOp op = (Ast.UnaryOp) expression;
+            String place1 = newVar();
+            String unopName = translateUnop(op.operator());
+            String code1 = translate(op.argument(), place1);
+            result += code1 + place + ":=" + unopName + "(" + place1 + ")";
+        } else if (expression instanceof Ast.BinaryOp) {
+            Ast.BinaryOp op = (Ast.BinaryOp) expression;
+            String place1 = newVar();
+            String place2 = newVar();
+            String code1 = translate(op.left(), place1);
+            String code2 = translate(op.right(), place2);
+            String binopName = translateBinop(op.operator());
+
+            result += code1 + "\n" + code2 + "\n" + place + ":=" + place1 + binopName + place2;
+        }
 
-                result += code1 + "\n" + code2 + "\n";
-                result += "IF " + place1 + " " + relop + " " + place2 + " THEN " + labelTrue + " ELSE " + labelFalse + "\n";
-                break;
+        return result;
+    }
 
-            case "COMPOSIT":
-                if (condNode.children.get(0).value.equals("UNOP")) {
-                    if(condNode.children.get(0).children.get(0).value.equals("not")){
-                        result += translateCond(condNode.children.get(2), labelFalse, labelTrue);
-                    }
-                    
-                } else if (condNode.children.get(0).value.equals("BINOP")) {
-                    if (condNode.children.get(0).children.get(0).value.equals("and")) {
-                        // COMPOSIT ::= SIMPLE1 && SIMPLE2
-                        String labelMid = newLabel();
-                        String codeS1 = translateCond(condNode.children.get(2), labelMid, labelFalse);
-                        String codeS2 = translateCond(condNode.children.get(4), labelTrue, labelFalse);
-                        result += codeS1 + " LABEL " + labelMid + "\n" + codeS2;
-                    } else if (condNode.children.get(0).children.get(0).value.equals("or")) {
-                        // COMPOSIT ::= SIMPLE1 || SIMPLE2
-                        String labelMid = newLabel();
-                        String codeS1 = translateCond(condNode.children.get(2), labelTrue, labelMid);
-                        String codeS2 = translateCond(condNode.children.get(4), labelTrue, labelFalse);
-                        result += codeS1 + " LABEL " + labelMid + "\n" + codeS2;
-                        
-                    }
-                }
-                break;
+    private String translateUnop(NodeKind operator) {
+        if (operator == NodeKind.SQRT) {
+            return "SQR";
+        }else if(operator == NodeKind.NOT){
+            return "NOT";
+        }
+        return "";
+    }
 
+    private String translateBinop(NodeKind operator) {
+        switch (operator) {
+            case EQ:
+                return "=";
+            case GRT:
+                return ">";
+            case ADD:
+                return "+";
+            case SUB:
+                return "-";
+            case MUL:
+                return "*";
+            case DIV:
+                return "/";
             default:
-                throw new IllegalArgumentException("Unknown condition type: " + condNode.value);
+                throw new IllegalArgumentException(
+                        "Unsupported binary operator: " + operator.symbol);
         }
-
-        return result;
     }
 
-    public String translateFunction(SyntaxTree.Node node, String functionName, String[] parameters) throws Exception {
+    public String translateCond(Ast.Cond condition, String labelTrue, String labelFalse) throws Exception {
         String result = "";
 
-        switch (node.value) {
-            case "FUNCTIONS":
-                if(node.children.size() == 2)
-                {
-                    String str1 = translateFunction(node.children.get(0), functionName, parameters);
-                    String str2 = translateFunction(node.children.get(1), functionName, parameters);
-                    result += str1 + "\nSTOP\n" + str2;
-                    
-                }
-                else if(node.children.size() == 1)
-                {
-                    result += "REM END\n";
-                    
-                }
-                break;
-
-            case "SUBFUNCS":
-                result += translateFunction(node.children.get(0), functionName, parameters);
-                break;
-            case "BODY":
-            {
-                String pCode = translate(node.children.get(0), null);
-                String aCode = translate(node.children.get(2), null);
-                String eCode = translate(node.children.get(3), null);
-                String sCode = translateFunction(node.children.get(4), functionName, parameters);
-                result += pCode + "\n" + aCode + "\n" + eCode + sCode;
-                break;
-
+        if (condition instanceof Ast.Simple) {
+            Ast.Simple simple = (Ast.Simple) condition;
+            String place1 = newVar();
+            String place2 = newVar();
+            String code1 = translate(simple.left(), place1);
+            String code2 = translate(simple.right(), place2);
+            String relop = translateBinop(simple.operator());
+
+            result += code1 + "\n" + code2 + "\n";
+            result += "IF " + place1 + " " + relop + " " + place2 + " THEN " + labelTrue + " ELSE " + labelFalse + "\n";
+        } else if (condition instanceof Ast.UnaryCond) {
+            Ast.UnaryCond composite = (Ast.UnaryCond) condition;
+            if (composite.operator() == NodeKind.NOT) {
+                result += translateCond(composite.operand(), labelFalse, labelTrue);
+            }
+        } else if (condition instanceof Ast.BinaryCond) {
+            Ast.BinaryCond composite = (Ast.BinaryCond) condition;
+            if (composite.operator() == NodeKind.AND) {
+                // COMPOSIT ::= SIMPLE1 && SIMPLE2
+                String labelMid = newLabel();
+                String codeS1 = translateCond(composite.left(), labelMid, labelFalse);
+                String codeS2 = translateCond(composite.right(), labelTrue, labelFalse);
+                result += codeS1 + " LABEL " + labelMid + "\n" + codeS2;
+            } else if (composite.operator() == NodeKind.OR) {
+                // COMPOSIT ::= SIMPLE1 || SIMPLE2
+                String labelMid = newLabel();
+                String codeS1 = translateCond(composite.left(), labelTrue, labelMid);
+                String codeS2 = translateCond(composite.right(), labelTrue, labelFalse);
+                result += codeS1 + " LABEL " + labelMid + "\n" + codeS2;
             }
-            case "EPILOG":
-                result += "REM END\n";
-                break;
-            case "PROLOG":
-                result += "REM BEGIN\n";
-                break;
-            case "DECL":
-                result += translateFunction(node.children.get(0), functionName, parameters);
-                result += translateFunction(node.children.get(1), functionName, parameters);
-                break;
-            case "HEADER":
-                String str1 = node.children.get(3).children.get(0).value +" := "+ parameters[0];
-                String str2 = node.children.get(5).children.get(0).value +" := "+ parameters[1];
-                String str3 = node.children.get(7).children.get(0).value +" := "+ parameters[2];
-                result += str1 + "\n" + str2 + "\n" + str3;
-                break;
-            default:
-                result += "";
-                break;
         }
 
         return result;
+    }
+
+    // The body of a called function, with its parameters assigned from the call's arguments and the functions
+    // declared inside it after it
+    public String translateFunction(Ast.FunctionDecl function, String functionName, String[] parameters) throws Exception {
+        Ast.Name[] names = function.parameters();
+        String str1 = names[0].text() +" := "+ parameters[0];
+        String str2 = names[1].text() +" := "+ parameters[1];
+        String str3 = names[2].text() +" := "+ parameters[2];
+        String aCode = translateInstructions(function.body());
+        String sCode = translateFunctions(function.subfunctions(), functionName, parameters);
+        return str1 + "\n" + str2 + "\n" + str3 + "\n" + aCode + "\n" + sCode;
+    }
 
+    private String translateFunctions(Ast.FunctionDecl[] functions, String functionName, String[] parameters) throws Exception {
+        StringBuilder result = new StringBuilder();
+        for (Ast.FunctionDecl function : functions) {
+            result.append(translateFunction(function, functionName, parameters)).append("\nSTOP\n");
+        }
+        return result.append("REM END\n").toString();
     }
 
-    public void processFunctionCalls(String fileName,SyntaxTree.Node root) {
+    public void processFunctionCalls(String fileName, Ast.Program program) {
+        Map<String, Ast.FunctionDecl> functions = indexFunctions(program.functions(), new HashMap<>());
         String result = "";
         do {
         try {
@@ -327,14 +230,7 @@ public class CodeGeneration {
                         String[] parameters = m.group(2).split(",");
                         // System.out.println("Function Name: " + functionName);
                         // System.out.println("Parameters: " + Arrays.toString(parameters));
-                        int unid = -1;
-                        for (Map.Entry<Integer, SymbolTable.VariableInfo> entry : symbolTable.entrySet()) {
-                            if (entry.getValue().uniqueName.equals(functionName)) {
-                                unid = entry.getKey();
-                                break;
-                            }
-                        }
-                        SyntaxTree.Node node = findFunctionDeclaration(root,unid);
+                        Ast.FunctionDecl node = functions.get(functionName);
                     
                         try {
                             result += translateFunction(node, functionName, parameters);
@@ -379,18 +275,14 @@ public class CodeGeneration {
         System.out.println("Successfully wrote to Phase5B.txt");
     }
 
-    public SyntaxTree.Node findFunctionDeclaration(SyntaxTree.Node node, int unid) {
-        //check for HEADER and the node.children.get(1).unid == unid
-        if(node.value.equals("HEADER") && node.children.get(1).children.get(0).unid == unid){
-            return node.parent;
-        }
-        for (SyntaxTree.Node child : node.children) {
-            SyntaxTree.Node result = findFunctionDeclaration(child, unid);
-            if (result != null) {
-                return result;
-            }
+    // Every function declaration of the program, nested ones included, by the unique name calls refer to
+    private static Map<String, Ast.FunctionDecl> indexFunctions(Ast.FunctionDecl[] functions,
+            Map<String, Ast.FunctionDecl> index) {
+        for (Ast.FunctionDecl function : functions) {
+            index.put(function.name().symbol().uniqueName, function);
+            indexFunctions(function.subfunctions(), index);
         }
-        return null;
+        return index;
     }
 
     public String newVar() {
@@ -0,0 +1,127 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// On-disk cache of compiler outputs, keyed on a SHA-256 of the token stream, so whitespace and layout
+// changes still hit. An entry holds the symbol table, Phase5A and Phase5B text. Entries are published with
+// an atomic rename and a hit refreshes the entry's modification time, which is what eviction orders by;
+// several processes or batch workers can share one directory.
+public class CompileCache {
+    private static final String MAGIC = "RCCH";
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".rcc";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public CompileCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    // Hex SHA-256 of every token's class and word; the grammar hash and cache version are mixed in so
+    // that entries written by a different compiler are never picked up
+    public String key(List<Token> tokens) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update((VERSION + ":" + ParserTables.GRAMMAR_HASH + "\n").getBytes(StandardCharsets.UTF_8));
+        for (Token token : tokens) {
+            digest.update(token.getTokenClass().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(token.getToken().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // The cached symbol table, Phase5A and Phase5B text, or null on a miss
+    public String[] get(String key) {
+        Path entry = directory.resolve(key + SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            BinaryFormat.readMagic(in, MAGIC, VERSION);
+            String[] outputs = { BinaryFormat.readString(in), BinaryFormat.readString(in), BinaryFormat.readString(in) };
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return outputs;
+        } catch (IOException e) {
+            // missing, evicted meanwhile, or written by another format version: a miss, which put() replaces
+            return null;
+        }
+    }
+
+    public void put(String key, String symbolTable, String intermediateCode, String targetCode) throws IOException {
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                BinaryFormat.writeMagic(out, MAGIC, VERSION);
+                BinaryFormat.writeString(out, symbolTable);
+                BinaryFormat.writeString(out, intermediateCode);
+                BinaryFormat.writeString(out, targetCode);
+            }
+            try {
+                Files.move(temp, directory.resolve(key + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        evict();
+    }
+
+    // Deletes the least recently used entries until the cache fits in maxBytes again
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, long[]> sizeAndTime = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : stream) {
+                try {
+                    long size = Files.size(entry);
+                    sizeAndTime.put(entry, new long[] { size, Files.getLastModifiedTime(entry).toMillis() });
+                    entries.add(entry);
+                    total += size;
+                } catch (NoSuchFileException e) {
+                    // evicted by another process meanwhile
+                }
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> sizeAndTime.get(entry)[1]));
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry);
+            total -= sizeAndTime.get(entry)[0];
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Command line client for CompileDaemon. Compiles a source file (input.txt by default) and writes
+// symbol_table.txt, Phase5A.txt and Phase5B.txt like Main does. When no daemon answers on the socket it
+// compiles in-process instead, so it is always safe to use in place of Main.
+// Usage: java CompileClient [source file] [socket path]
+public class CompileClient {
+
+    public static void main(String[] args) throws Exception {
+        Path source = Paths.get(args.length > 0 ? args[0] : "input.txt");
+        Path socketPath = args.length > 1 ? Paths.get(args[1]) : CompileDaemon.defaultSocketPath();
+
+        Compiler.Compilation compilation;
+        Exception failure = null;
+        try {
+            compilation = compile(source, socketPath);
+        } catch (Compiler.CompilationException e) {
+            // still write out whatever the phases before the failing one produced
+            compilation = e.getPartial();
+            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        Main.writeOutputs(compilation, null, true);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static Compiler.Compilation compile(Path source, Path socketPath)
+            throws IOException, Compiler.CompilationException {
+        if (Files.exists(socketPath)) {
+            String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+            try {
+                return CompileDaemon.compileRemote(socketPath, text);
+            } catch (IOException e) {
+                System.err.println("Compile daemon unavailable (" + e.getMessage() + "), compiling in-process");
+            }
+        }
+        return new Compiler().compile(source);
+    }
+}
@@ -0,0 +1,186 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Long-lived compiler behind a Unix-domain socket, so repeated compiles skip JVM startup and warm-up.
+// Every connection is served on its own virtual thread where the runtime has them (Java 21+), otherwise
+// on a cached thread pool. Phase5B is generated incrementally, so a resubmitted program only has its
+// changed functions translated again. CompileClient is the matching command line client.
+// Usage: java CompileDaemon [socket path]
+//
+// Protocol: the client opens with the magic "RCMP" and a version byte, which the daemon echoes. Then
+// any number of requests, each a COMPILE byte and the source as a length-prefixed UTF-8 string. Each
+// response is a status byte, the error message when the status is FAILED, and then the symbol table,
+// Phase5A and Phase5B text, each preceded by a byte saying whether that phase got that far.
+public class CompileDaemon {
+    static final String MAGIC = "RCMP";
+    static final int VERSION = 1;
+    static final int COMPILE = 1;
+    static final int OK = 0;
+    static final int FAILED = 1;
+
+    private final Path socketPath;
+    // the phases' progress messages are dropped; a daemon has nobody to show them to
+    private final Compiler compiler = new Compiler(false, null, new IncrementalCodeGeneration(),
+            new PrintStream(OutputStream.nullOutputStream()));
+
+    public CompileDaemon(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    public static Path defaultSocketPath() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "recspl-compiler.sock");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path socketPath = args.length > 0 ? Paths.get(args[0]) : defaultSocketPath();
+        new CompileDaemon(socketPath).serve(System.err);
+    }
+
+    public void serve(PrintStream log) throws IOException {
+        if (Files.exists(socketPath)) {
+            if (isListening(socketPath)) {
+                throw new IOException("A compile daemon is already listening on " + socketPath);
+            }
+            Files.delete(socketPath); // left behind by a daemon that did not shut down cleanly
+        }
+
+        ExecutorService workers = newWorkerExecutor();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socketPath);
+                } catch (IOException e) {
+                    // nothing left to do on the way out
+                }
+            }));
+            log.println("Compile daemon listening on " + socketPath);
+            while (true) {
+                SocketChannel client = server.accept();
+                workers.execute(() -> handle(client, log));
+            }
+        } finally {
+            workers.shutdownNow();
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    public static boolean isListening(Path socketPath) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Virtual threads are looked up reflectively so the daemon still builds and runs on Java 17
+    private static ExecutorService newWorkerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handle(SocketChannel client, PrintStream log) {
+        try (SocketChannel channel = client) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            BinaryFormat.readMagic(in, MAGIC, VERSION);
+            BinaryFormat.writeMagic(out, MAGIC, VERSION);
+            out.flush();
+
+            while (true) {
+                int request = in.read();
+                if (request == -1) {
+                    return;
+                }
+                if (request != COMPILE) {
+                    throw new IOException("Unknown request " + request);
+                }
+                String source = BinaryFormat.readString(in);
+                long start = System.nanoTime();
+                Compiler.Compilation compilation;
+                String error = null;
+                try {
+                    compilation = compiler.compile(source);
+                } catch (Compiler.CompilationException e) {
+                    compilation = e.getPartial();
+                    error = e.getMessage() != null ? e.getMessage() : e.getCause().getClass().getName();
+                }
+                writeResponse(out, compilation, error);
+                log.printf("Compiled %d bytes in %.1f ms%s%n", source.length(), (System.nanoTime() - start) / 1e6,
+                        error != null ? ": " + error : "");
+            }
+        } catch (IOException e) {
+            log.println("Dropped connection: " + e.getMessage());
+        }
+    }
+
+    private static void writeResponse(DataOutputStream out, Compiler.Compilation compilation, String error)
+            throws IOException {
+        out.writeByte(error == null ? OK : FAILED);
+        if (error != null) {
+            BinaryFormat.writeString(out, error);
+        }
+        writeOptionalString(out, compilation.getSymbolTableText());
+        writeOptionalString(out, compilation.getIntermediateCode());
+        writeOptionalString(out, compilation.getTargetCode());
+        out.flush();
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            BinaryFormat.writeString(out, s);
+        }
+    }
+
+    // Sends one source to the daemon on socketPath; throws CompilationException carrying the partial
+    // outputs when the compile fails, and IOException when no daemon answers
+    public static Compiler.Compilation compileRemote(Path socketPath, String source)
+            throws IOException, Compiler.CompilationException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            BinaryFormat.writeMagic(out, MAGIC, VERSION);
+            out.writeByte(COMPILE);
+            BinaryFormat.writeString(out, source);
+            out.flush();
+
+            BinaryFormat.readMagic(in, MAGIC, VERSION);
+            int status = in.read();
+            if (status == -1) {
+                throw new EOFException("The compile daemon closed the connection");
+            }
+            String error = status == FAILED ? BinaryFormat.readString(in) : null;
+            Compiler.Compilation compilation = new Compiler.Compilation(
+                    readOptionalString(in), readOptionalString(in), readOptionalString(in));
+            if (error != null) {
+                throw new Compiler.CompilationException(new Exception(error), compilation);
+            }
+            return compilation;
+        }
+    }
+
+    private static String readOptionalString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? BinaryFormat.readString(in) : null;
+    }
+}
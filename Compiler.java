@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// In-process compiler: source text or a source file in, every artifact back in memory.
+// Each compile call builds its own Lexer, Parser and analysis passes and touches no files or shared
+// state, so one Compiler can be used from many threads at once. The phases' progress messages, and any
+// cache entry that could not be written, go to the Compiler's log stream, stdout unless another one is given.
+public class Compiler {
+    private final boolean keepParsedTree;
+    private final CompileCache cache;
+    private final IncrementalCodeGeneration incremental;
+    private final PrintStream log;
+
+    public Compiler() {
+        this(false);
+    }
+
+    // keepParsedTree keeps a copy of the tree as parsed, before the analysis rewrites its leaf UNIDs
+    public Compiler(boolean keepParsedTree) {
+        this(keepParsedTree, null);
+    }
+
+    // With a cache, a token stream compiled before skips analysis and code generation, and parsing too
+    // unless the parsed tree is to be kept
+    public Compiler(boolean keepParsedTree, CompileCache cache) {
+        this(keepParsedTree, cache, null);
+    }
+
+    // With an IncrementalCodeGeneration, Phase5B reuses the code of functions unchanged since an earlier
+    // compile through it; one instance can be shared by several Compilers
+    public Compiler(boolean keepParsedTree, CompileCache cache, IncrementalCodeGeneration incremental) {
+        this(keepParsedTree, cache, incremental, System.out);
+    }
+
+    // Compilers sharing a log from several threads interleave their messages; pass a null stream to drop them
+    public Compiler(boolean keepParsedTree, CompileCache cache, IncrementalCodeGeneration incremental, PrintStream log) {
+        this.keepParsedTree = keepParsedTree;
+        this.cache = cache;
+        this.incremental = incremental;
+        this.log = log;
+    }
+
+    // Artifacts of one compilation; a failed compilation carries the ones produced before the failing phase
+    public static class Compilation {
+        private List<Token> tokens;
+        private SyntaxArena parsedTree;
+        private SyntaxTree analyzedTree;
+        private Map<Integer, SymbolTable.VariableInfo> symbolTable;
+        private String symbolTableText;
+        private String intermediateCode;
+        private String targetCode;
+        private long lexNanos;
+        private long parseNanos;
+        private long analysisNanos;
+        private long codeGenerationNanos;
+        private boolean cacheHit;
+
+        Compilation() {
+        }
+
+        // The text outputs of a compilation run elsewhere, as sent back by a CompileDaemon
+        Compilation(String symbolTableText, String intermediateCode, String targetCode) {
+            this.symbolTableText = symbolTableText;
+            this.intermediateCode = intermediateCode;
+            this.targetCode = targetCode;
+        }
+
+        public List<Token> getTokens() {
+            return tokens;
+        }
+
+        // The tree as parsed, or null unless the Compiler was asked to keep it
+        public SyntaxArena getParsedTree() {
+            return parsedTree;
+        }
+
+        // The tree after scope analysis, with leaf UNIDs bound to their declarations
+        public SyntaxTree getAnalyzedTree() {
+            return analyzedTree;
+        }
+
+        public Map<Integer, SymbolTable.VariableInfo> getSymbolTable() {
+            return symbolTable;
+        }
+
+        // symbol_table.txt
+        public String getSymbolTableText() {
+            return symbolTableText;
+        }
+
+        // Phase5A.txt
+        public String getIntermediateCode() {
+            return intermediateCode;
+        }
+
+        // Phase5B.txt
+        public String getTargetCode() {
+            return targetCode;
+        }
+
+        // Time spent in each phase; 0 for phases that did not run
+        public long getLexNanos() {
+            return lexNanos;
+        }
+
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        public long getAnalysisNanos() {
+            return analysisNanos;
+        }
+
+        public long getCodeGenerationNanos() {
+            return codeGenerationNanos;
+        }
+
+        // Whether the outputs came from the CompileCache; there is no analyzed tree or symbol table map then
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+    }
+
+    public static class CompilationException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final Compilation partial;
+
+        public CompilationException(Exception cause, Compilation partial) {
+            super(cause.getMessage(), cause);
+            this.partial = partial;
+        }
+
+        public Compilation getPartial() {
+            return partial;
+        }
+    }
+
+    public Compilation compile(CharSequence source) throws CompilationException {
+        return compile(() -> Lexer.fromSource(source));
+    }
+
+    public Compilation compile(Path source) throws CompilationException {
+        return compile(() -> {
+            if (!Files.exists(source)) {
+                throw new NoSuchFileException(source.toString());
+            }
+            return new Lexer(source.toString());
+        });
+    }
+
+    private interface LexStep {
+        Lexer lex() throws Exception;
+    }
+
+    private Compilation compile(LexStep lexStep) throws CompilationException {
+        Compilation compilation = new Compilation();
+        try {
+            long start = System.nanoTime();
+            compilation.tokens = lexStep.lex().getTokens();
+            compilation.lexNanos = System.nanoTime() - start;
+
+            String cacheKey = null;
+            String[] cached = null;
+            if (cache != null) {
+                cacheKey = cache.key(compilation.tokens);
+                cached = cache.get(cacheKey);
+            }
+            if (cached != null && !keepParsedTree) {
+                return fromCache(compilation, cached);
+            }
+
+            start = System.nanoTime();
+            SyntaxTree syntaxTree = new Parser(log).parse(compilation.tokens);
+            if (keepParsedTree) {
+                compilation.parsedTree = syntaxTree.getArena().copy();
+            }
+            compilation.parseNanos = System.nanoTime() - start;
+            if (cached != null) {
+                return fromCache(compilation, cached);
+            }
+
+            start = System.nanoTime();
+            ScopeAnalysis sA = new ScopeAnalysis(log);
+            SyntaxArena tree = syntaxTree.getArena();
+            sA.analyze(tree); // scope and type checks in one pass
+            compilation.analyzedTree = syntaxTree;
+            if (!sA.isWellTyped()) {
+                throw new Exception("Type check failed");
+            }
+            compilation.symbolTable = sA.getLargeSymbolTable();
+            compilation.symbolTableText = sA.symbolTableText();
+            compilation.analysisNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int program = tree.child(tree.root(), 0);
+            Ast.Program ast = AstLowering.lower(tree, program);
+            compilation.intermediateCode = new CodeGeneration().translate(ast);
+            if (incremental != null) {
+                compilation.targetCode = incremental.generateBasicCode(tree, program, ast);
+            } else {
+                compilation.targetCode = new TargetCodeGeneration().generateBasicCode(ast);
+            }
+            compilation.codeGenerationNanos = System.nanoTime() - start;
+
+            if (cache != null) {
+                try {
+                    cache.put(cacheKey, compilation.symbolTableText, compilation.intermediateCode, compilation.targetCode);
+                } catch (IOException e) {
+                    // the compilation itself succeeded; it just will not be reused
+                    log.println("Could not write compile cache entry: " + e.getMessage());
+                }
+            }
+            return compilation;
+        } catch (Exception e) {
+            throw new CompilationException(e, compilation);
+        }
+    }
+
+    private static Compilation fromCache(Compilation compilation, String[] cached) {
+        compilation.symbolTableText = cached[0];
+        compilation.intermediateCode = cached[1];
+        compilation.targetCode = cached[2];
+        compilation.cacheHit = true;
+        return compilation;
+    }
+}
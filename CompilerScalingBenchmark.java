@@ -0,0 +1,50 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// Compiles one generated program of the given number of statements through every phase and reports the
+// time each phase took. The analysis passes and the code generators walk the statement chain without
+// recursing on it, so the default million statements must compile on a normal thread stack; the tree
+// needs a large heap though, e.g. java -Xmx3g CompilerScalingBenchmark. The passes' progress messages are
+// discarded.
+// Usage: java CompilerScalingBenchmark [statements]
+public class CompilerScalingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        String source = program(statements);
+        System.out.println("Input: " + statements + " statements, " + source.length() + " characters");
+
+        Compiler compiler = new Compiler(false, null, null, new PrintStream(OutputStream.nullOutputStream()));
+        Compiler.Compilation compilation = compiler.compile(source);
+
+        System.out.printf("lex %.0f ms, parse %.0f ms, analysis %.0f ms, code generation %.0f ms%n",
+                compilation.getLexNanos() / 1e6, compilation.getParseNanos() / 1e6,
+                compilation.getAnalysisNanos() / 1e6, compilation.getCodeGenerationNanos() / 1e6);
+        System.out.println("Phase5A " + compilation.getIntermediateCode().length() + " characters, Phase5B "
+                + compilation.getTargetCode().length() + " characters");
+    }
+
+    // A main program cycling through every kind of statement Phase5B can translate, and one function for
+    // it to call
+    private static String program(int statements) {
+        String[] commands = {
+                "V_x = add ( V_x , 1 ) ;",
+                "V_y < input ;",
+                "print V_x ;",
+                "V_s = \"Hello\" ;",
+                "V_z = mul ( V_x , sub ( V_y , 2 ) ) ;",
+                "if grt ( V_x , 10 ) then begin V_r = F_fact ( V_x , 0 , 1 ) ; end else begin skip ; end ;",
+        };
+        StringBuilder source = new StringBuilder();
+        source.append("main\n    num V_x , num V_y , num V_z , num V_r , text V_s ,\n    begin\n");
+        for (int i = 0; i < statements; i++) {
+            source.append("        ").append(commands[i % commands.length]).append('\n');
+        }
+        source.append("    end\n");
+        source.append("    num F_fact ( V_n , V_a , V_b )\n    {\n        num V_c , num V_d , num V_e ,\n");
+        source.append("        begin\n            V_c = mul ( V_n , V_b ) ;\n            return V_c ;\n");
+        source.append("        end\n    }\n    end\n");
+        return source.toString();
+    }
+}
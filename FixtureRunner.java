@@ -0,0 +1,89 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Compiles every fixture and compares the outputs with the ones the original compiler produced for it. A
+// fixture is a directory holding input.txt and whichever of symbol_table.txt, Phase5A.txt and Phase5B.txt
+// that compiler wrote, named as Main writes them. A fixture with error.txt must fail to compile with exactly
+// that message; its other files are compared with what was produced before the failure. The passes' progress
+// messages are discarded. Every fixture is also compiled twice through one IncrementalCodeGeneration, the
+// second time from its fragment cache, and must come out the same. Exits with status 1 if any fixture differs.
+// Usage: java FixtureRunner [fixtures directory]
+public class FixtureRunner {
+    private static final String[] OUTPUTS = { "symbol_table.txt", "Phase5A.txt", "Phase5B.txt" };
+
+    public static void main(String[] args) throws Exception {
+        File root = new File(args.length > 0 ? args[0] : "fixtures");
+        File[] fixtures = root.listFiles(file -> new File(file, "input.txt").isFile());
+        if (fixtures == null || fixtures.length == 0) {
+            throw new IllegalArgumentException("No fixtures in " + root);
+        }
+        Arrays.sort(fixtures);
+
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        Compiler compiler = new Compiler(false, null, null, quiet);
+        IncrementalCodeGeneration generator = new IncrementalCodeGeneration();
+        Compiler incremental = new Compiler(false, null, generator, quiet);
+        int failed = 0;
+        for (File fixture : fixtures) {
+            List<String> differences = check(fixture, compiler);
+            for (String run : new String[] { "incremental", "incremental again" }) {
+                for (String difference : check(fixture, incremental)) {
+                    differences.add(run + " " + difference);
+                }
+            }
+            if (differences.isEmpty()) {
+                System.out.println(fixture.getName() + ": ok");
+            } else {
+                System.out.println(fixture.getName() + ": FAILED, " + String.join(", ", differences));
+                failed++;
+            }
+        }
+        System.out.println(fixtures.length + " fixtures, " + failed + " failed; incremental generated "
+                + generator.getFragmentsGenerated() + " units and reused " + generator.getFragmentsReused());
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // What differs between the fixture and compiling its input, or nothing
+    private static List<String> check(File fixture, Compiler compiler) throws IOException {
+        List<String> differences = new ArrayList<>();
+        String expectedError = read(new File(fixture, "error.txt"));
+        Compiler.Compilation compilation;
+        try {
+            compilation = compiler.compile(new File(fixture, "input.txt").toPath());
+            if (expectedError != null) {
+                differences.add("compiled, expected error " + expectedError.strip());
+            }
+        } catch (Compiler.CompilationException e) {
+            compilation = e.getPartial();
+            if (expectedError == null) {
+                differences.add("error " + e.getMessage());
+            } else if (!expectedError.strip().equals(e.getMessage())) {
+                differences.add("error.txt differs: " + e.getMessage());
+            }
+        }
+
+        String[] actual = {
+                compilation.getSymbolTableText(), compilation.getIntermediateCode(), compilation.getTargetCode() };
+        for (int i = 0; i < OUTPUTS.length; i++) {
+            String expected = read(new File(fixture, OUTPUTS[i]));
+            if (expected != null && !expected.equals(actual[i])) {
+                differences.add(OUTPUTS[i] + " differs");
+            }
+        }
+        return differences;
+    }
+
+    // The file's text, or null if there is no such file
+    private static String read(File file) throws IOException {
+        return file.isFile() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,192 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Phase5B code generation one function at a time, for a long-running process that recompiles programs
+// with small edits. The main program and every top-level DECL are separate units, identified by a hash of
+// their subtree together with the types the analysis bound in it and which of its names are the same
+// declaration; names are numbered within the unit, so a declaration added elsewhere does not change the
+// hash. Units are generated as relocatable code, and one whose hash was generated before is placed from the
+// fragment cache at the line where it lands now under its current names; only new units and the functions
+// calling them are translated again. The result is the same text TargetCodeGeneration.generateBasicCode
+// produces for the whole program.
+public class IncrementalCodeGeneration {
+    private static final int MAX_FRAGMENTS = 4096;
+
+    private static class Unit {
+        int node;
+        Ast.FunctionDecl function; // null for the main program
+        String hash;
+        Map<SymbolTable.VariableInfo, Integer> nameSlots = new HashMap<>(); // numbered in order of first use
+        List<String> names = new ArrayList<>(); // the unique name of each slot
+        Set<Integer> callees = new HashSet<>();
+        boolean dirty;
+    }
+
+    // Fragments by unit hash, least recently used first; once full, adding one evicts the eldest
+    private static class FragmentCache extends LinkedHashMap<String, TargetCodeGeneration.Relocatable> {
+        private static final long serialVersionUID = 1L;
+
+        FragmentCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TargetCodeGeneration.Relocatable> eldest) {
+            return size() > MAX_FRAGMENTS;
+        }
+    }
+
+    // shared by every thread generating through this instance
+    private final Map<String, TargetCodeGeneration.Relocatable> fragments =
+            Collections.synchronizedMap(new FragmentCache());
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+
+    // program is the PROG node of tree, which went through scope analysis and type checking, and ast the
+    // program lowered from it; units are hashed on the former and generated from the latter
+    public String generateBasicCode(SyntaxArena tree, int program, Ast.Program ast) {
+        Unit main = new Unit();
+        main.node = program;
+        List<Unit> units = new ArrayList<>();
+        units.add(main);
+        for (int functions = tree.child(program, 3); tree.childCount(functions) > 1;
+                functions = tree.child(functions, 1)) {
+            Unit unit = new Unit();
+            unit.node = tree.child(functions, 0);
+            unit.function = ast.functions()[units.size() - 1];
+            units.add(unit);
+        }
+
+        // the call graph, keyed on the UNID each FNAME resolves to
+        Map<Integer, Unit> declarations = new HashMap<>();
+        for (Unit unit : units) {
+            StringBuilder key = new StringBuilder();
+            if (unit == main) {
+                key.append("main\n");
+                describe(tree, tree.child(program, 1), key, unit);
+                describe(tree, tree.child(program, 2), key, unit);
+            } else {
+                describe(tree, unit.node, key, unit);
+                declarations.put(tree.binding(fnameLeaf(tree, unit.node)).unid, unit);
+            }
+            unit.hash = sha256(key);
+            unit.dirty = !fragments.containsKey(unit.hash);
+        }
+        // callers are translated again together with a changed function, so no caller is ever stitched in
+        // from a different build than the function it calls
+        for (Unit unit : units) {
+            if (unit.dirty) {
+                continue;
+            }
+            for (int callee : unit.callees) {
+                Unit target = declarations.get(callee);
+                if (target != null && target.dirty) {
+                    unit.dirty = true;
+                    break;
+                }
+            }
+        }
+
+        TargetCodeGeneration generator = new TargetCodeGeneration();
+        // the same names in the same order as generateBasicCode, so calls resolve to the same text
+        Map<String, Integer> functionLineNumbers = new HashMap<>();
+        StringBuilder code = new StringBuilder();
+        int lineNumber = 10;
+        for (Unit unit : units) {
+            if (unit != main) {
+                String type = unit.function.returnType();
+                if (type.equals("num") || type.equals("void")) {
+                    functionLineNumbers.put(unit.function.name().symbol().uniqueName, lineNumber);
+                }
+            }
+
+            TargetCodeGeneration.Relocatable fragment = unit.dirty ? null : fragments.get(unit.hash);
+            if (fragment != null) {
+                reused.incrementAndGet();
+            } else {
+                fragment = unit == main ? generator.relocatableProgramHead(ast, unit.nameSlots)
+                        : generator.relocatableFunction(unit.function, unit.nameSlots);
+                fragments.put(unit.hash, fragment);
+                generated.incrementAndGet();
+            }
+            code.append(fragment.place(lineNumber, unit.names));
+            lineNumber += fragment.lines();
+        }
+        return TargetCodeGeneration.resolveCalls(code.toString(), functionLineNumbers);
+    }
+
+    // Units stitched in from the fragment cache and units translated, over every call so far
+    public long getFragmentsReused() {
+        return reused.get();
+    }
+
+    public long getFragmentsGenerated() {
+        return generated.get();
+    }
+
+    // Everything code generation reads from a subtree: the node values and, for bound names, the unit's slot
+    // for the declaration and its type. Slots are numbered in order of first use, so neither the UNIDs nor
+    // the unique names, which an edit anywhere earlier in the file renumbers, go into the key.
+    // Walks root in preorder along the parent and sibling links rather than recursing, since a unit's
+    // statement chain is as deep as it is long, and closes each node once the walk climbs out of it.
+    private static void describe(SyntaxArena tree, int root, StringBuilder key, Unit unit) {
+        int node = root;
+        while (true) {
+            key.append(tree.value(node));
+            SymbolTable.VariableInfo info = tree.binding(node);
+            if (info != null) {
+                Integer slot = unit.nameSlots.get(info);
+                if (slot == null) {
+                    slot = unit.names.size();
+                    unit.nameSlots.put(info, slot);
+                    unit.names.add(info.uniqueName);
+                }
+                key.append('\0').append(slot).append('\0').append(info.type);
+            }
+            key.append('(');
+
+            if (tree.kind(node) == NodeKind.CALL) {
+                SymbolTable.VariableInfo function = tree.binding(tree.child(tree.child(node, 0), 0));
+                if (function != null) {
+                    unit.callees.add(function.unid);
+                }
+            }
+
+            if (!tree.isLeaf(node)) {
+                node = tree.firstChild(node);
+                continue;
+            }
+            key.append(")\n");
+            while (node != root && tree.nextSibling(node) == SyntaxArena.NONE) {
+                node = tree.parent(node);
+                key.append(")\n");
+            }
+            if (node == root) {
+                return;
+            }
+            node = tree.nextSibling(node);
+        }
+    }
+
+    private static int fnameLeaf(SyntaxArena tree, int decl) {
+        return tree.child(tree.child(tree.child(decl, 0), 1), 0);
+    }
+
+    private static String sha256(CharSequence text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] hash = digest.digest(text.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -1,7 +1,11 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import javax.xml.parsers.DocumentBuilder;
@@ -17,87 +21,269 @@ public class Lexer {
             "main", "begin", "end", "skip", "halt", "print", "if", "then", "else",
             "num", "text", "void", "not", "sqrt", "or", "and", "eq", "grt", "add", "sub", "mul", "div",
             "< input", "=", "(", ")", ",", ";", "{", "}","return"));
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("V_[a-z][a-z0-9]*");
-    private static final Pattern FUNCTION_PATTERN = Pattern.compile("F_[a-z][a-z0-9]*");
-    private static final Pattern STRING_PATTERN = Pattern.compile("\"[A-Z][a-z]{0,7}\"");
-    private static final Pattern NUMBER_PATTERN = Pattern
-            .compile("(0|([1-9][0-9]*))(\\.[0-9]+)?|-0(\\.[0-9]+)?|-[1-9][0-9]*(\\.[0-9]+)?");
+    // reserved keywords bucketed by first character, so a word is matched without building a String for it
+    private static final String[][] keywordsByFirstChar = new String[128][];
+
+    static {
+        for (String keyword : reserved_keywords) {
+            char first = keyword.charAt(0);
+            String[] bucket = keywordsByFirstChar[first];
+            if (bucket == null) {
+                bucket = new String[] { keyword };
+            } else {
+                bucket = Arrays.copyOf(bucket, bucket.length + 1);
+                bucket[bucket.length - 1] = keyword;
+            }
+            keywordsByFirstChar[first] = bucket;
+        }
+    }
+
+    // States of the DFA that classifies a word as V_, F_, T_ or N_
+    private static final int START = 0;
+    private static final int NAME_PREFIX = 1;      // V or F
+    private static final int NAME_UNDERSCORE = 2;  // V_ or F_
+    private static final int NAME = 3;             // V_[a-z][a-z0-9]*  (accepting)
+    private static final int TEXT_OPEN = 4;        // "
+    private static final int TEXT = 5;             // "[A-Z][a-z]{0,7}
+    private static final int TEXT_CLOSED = 6;      // "[A-Z][a-z]{0,7}"  (accepting)
+    private static final int MINUS = 7;            // -
+    private static final int ZERO = 8;             // 0 or -0  (accepting)
+    private static final int INTEGER = 9;          // [1-9][0-9]*  (accepting)
+    private static final int DOT = 10;             // integer part followed by .
+    private static final int FRACTION = 11;        // .[0-9]+  (accepting)
+    private static final int REJECT = 12;
+
+    // sources at least this large are memory-mapped instead of read onto the heap
+    private static final long MAP_THRESHOLD = 1 << 20;
+
     private List<Token> tokens;
 
     public Lexer(String fn) throws SyntaxException {
         this.fileName = fn;
         this.tokens = new ArrayList<>();
-        readFile();
+        readFile(null);
 
     }
 
-    private void readFile() throws SyntaxException {
-        try {
-            Scanner sc = new Scanner(new File(this.fileName));
-            
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
+    // Lexer mode that always (or never) memory-maps the source instead of choosing by file size
+    public Lexer(String fn, boolean memoryMapped) throws SyntaxException {
+        this.fileName = fn;
+        this.tokens = new ArrayList<>();
+        readFile(memoryMapped);
+    }
+
+    private Lexer(String name, ByteBuffer source) throws SyntaxException {
+        this.fileName = name;
+        this.tokens = new ArrayList<>();
+        scan(source, source.limit());
+    }
+
+    // Lexes source text held in memory; token ids are numbered from 1 within each Lexer
+    public static Lexer fromSource(CharSequence source) throws SyntaxException {
+        return new Lexer("<source>", ByteBuffer.wrap(source.toString().getBytes(StandardCharsets.UTF_8)));
+    }
 
-                if (line.contains("<_input")) {
-                    throw new SyntaxException("Invalid token '<_input' encountered in the source code.");
+    private void readFile(Boolean map) throws SyntaxException {
+        ByteBuffer source;
+        try (FileChannel channel = FileChannel.open(Paths.get(this.fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new SyntaxException("Source file " + this.fileName + " is too large.");
+            }
+            boolean memoryMapped = map != null ? map : size >= MAP_THRESHOLD;
+            if (memoryMapped) {
+                source = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                source = ByteBuffer.allocate((int) size);
+                while (source.hasRemaining() && channel.read(source) != -1) {
+                    // keep reading until the buffer is full
                 }
+                source.flip();
+            }
+        } catch (NoSuchFileException e) {
+            System.out.println("File was not found.");
+            return;
+        } catch (IOException e) {
+            throw new SyntaxException("Could not read " + this.fileName + ": " + e.getMessage());
+        }
+        scan(source, source.limit());
+    }
 
-                line = line.replace("< input", "<_input"); 
-                
-                String[] tokenList = line.split("\\s+");
+    // Single pass over the source: words are whitespace separated, except that '< input' is one token.
+    // Tokens are slices of the buffer; only their text is turned into a String, and only when asked for.
+    private void scan(ByteBuffer buf, int length) throws SyntaxException {
+        int invalidInputLine = lineContaining(buf, length, "<_input");
 
-                for (String token : tokenList) {
-                    token = token.trim();  
-                    
-                    if (token.isEmpty()) continue; 
+        int pos = 0;
+        while (pos < length) {
+            if ((buf.get(pos) & 0xff) <= ' ') {
+                pos++;
+                continue;
+            }
 
-                    if (token.equals("<_input")) {
-                        token = "< input";
-                    }
+            int start = pos;
+            if (start >= invalidInputLine) {
+                throw new SyntaxException("Invalid token '<_input' encountered in the source code.");
+            }
+            while (pos < length) {
+                int c = buf.get(pos) & 0xff;
+                if (c > ' ') {
+                    pos++;
+                } else if (c == ' ' && buf.get(pos - 1) == '<' && regionMatches(buf, pos + 1, length, "input")) {
+                    pos += 6;
+                } else {
+                    break;
+                }
+            }
 
-                    Matcher matcher;
+            String keyword = matchKeyword(buf, start, pos);
+            if (keyword != null) {
+                this.tokens.add(new Token(this.tokens.size() + 1, keyword, "reserved_keyword"));
+                continue;
+            }
 
-                    if (reserved_keywords.contains(token)) {
-                        this.tokens.add(new Token(token, "reserved_keyword"));
-                        continue;
-                    }
+            String tokenClass = classify(buf, start, pos);
+            if (tokenClass == null) {
+                byte[] word = new byte[pos - start];
+                buf.get(start, word);
+                String token = new String(word, StandardCharsets.UTF_8).replace("< input", "<_input");
+                throw new SyntaxException("Token does not belong to any class. Lexical Error! from token: " + token);
+            }
+            this.tokens.add(new Token(this.tokens.size() + 1, buf, start, pos - start, tokenClass));
+        }
+    }
 
-                    matcher = VARIABLE_PATTERN.matcher(token);
-                    if (matcher.matches()) {
-                        this.tokens.add(new Token(token, "V_"));
-                        continue;
-                    }
+    private static String matchKeyword(ByteBuffer buf, int start, int end) {
+        int first = buf.get(start) & 0xff;
+        if (first >= keywordsByFirstChar.length || keywordsByFirstChar[first] == null) {
+            return null;
+        }
+        for (String keyword : keywordsByFirstChar[first]) {
+            if (keyword.length() == end - start && regionMatches(buf, start, end, keyword)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
 
-                    matcher = FUNCTION_PATTERN.matcher(token);
-                    if (matcher.matches()) {
-                        this.tokens.add(new Token(token, "F_"));
-                        continue;
-                    }
+    private static String classify(ByteBuffer buf, int start, int end) {
+        int state = START;
+        int nameClass = 0;
+        int textLength = 0;
 
-                    matcher = STRING_PATTERN.matcher(token);
-                    if (matcher.matches()) {
-                        this.tokens.add(new Token(token, "T_"));
-                        continue;
+        for (int i = start; i < end && state != REJECT; i++) {
+            int c = buf.get(i) & 0xff;
+            switch (state) {
+                case START:
+                    if (c == 'V' || c == 'F') {
+                        nameClass = c;
+                        state = NAME_PREFIX;
+                    } else if (c == '"') {
+                        state = TEXT_OPEN;
+                    } else if (c == '-') {
+                        state = MINUS;
+                    } else if (c == '0') {
+                        state = ZERO;
+                    } else if (c >= '1' && c <= '9') {
+                        state = INTEGER;
+                    } else {
+                        state = REJECT;
                     }
-
-                    matcher = NUMBER_PATTERN.matcher(token);
-                    if (matcher.matches()) {
-                        this.tokens.add(new Token(token, "N_"));
-                        continue;
+                    break;
+                case NAME_PREFIX:
+                    state = c == '_' ? NAME_UNDERSCORE : REJECT;
+                    break;
+                case NAME_UNDERSCORE:
+                    state = c >= 'a' && c <= 'z' ? NAME : REJECT;
+                    break;
+                case NAME:
+                    state = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? NAME : REJECT;
+                    break;
+                case TEXT_OPEN:
+                    state = c >= 'A' && c <= 'Z' ? TEXT : REJECT;
+                    break;
+                case TEXT:
+                    if (c == '"') {
+                        state = TEXT_CLOSED;
+                    } else if (c >= 'a' && c <= 'z' && textLength < 7) {
+                        textLength++;
+                    } else {
+                        state = REJECT;
                     }
+                    break;
+                case MINUS:
+                    if (c == '0') {
+                        state = ZERO;
+                    } else if (c >= '1' && c <= '9') {
+                        state = INTEGER;
+                    } else {
+                        state = REJECT;
+                    }
+                    break;
+                case ZERO:
+                    state = c == '.' ? DOT : REJECT;
+                    break;
+                case INTEGER:
+                    if (c == '.') {
+                        state = DOT;
+                    } else if (c < '0' || c > '9') {
+                        state = REJECT;
+                    }
+                    break;
+                case DOT:
+                case FRACTION:
+                    state = c >= '0' && c <= '9' ? FRACTION : REJECT;
+                    break;
+                default:
+                    state = REJECT;
+                    break;
+            }
+        }
 
-                    throw new SyntaxException("Token does not belong to any class. Lexical Error! from token: " + token);
-                }
+        switch (state) {
+            case NAME:
+                return nameClass == 'V' ? "V_" : "F_";
+            case TEXT_CLOSED:
+                return "T_";
+            case ZERO:
+            case INTEGER:
+            case FRACTION:
+                return "N_";
+            default:
+                return null;
+        }
+    }
+
+    private static boolean regionMatches(ByteBuffer buf, int offset, int length, String s) {
+        if (offset + s.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (buf.get(offset + i) != s.charAt(i)) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            sc.close();
-        } catch (FileNotFoundException e) {
-            System.out.println("File was not found.");
+    // Start offset of the first line containing s, or Integer.MAX_VALUE when s does not occur
+    private static int lineContaining(ByteBuffer buf, int length, String s) {
+        for (int i = 0; i + s.length() <= length; i++) {
+            if (buf.get(i) == s.charAt(0) && regionMatches(buf, i, length, s)) {
+                while (i > 0 && buf.get(i - 1) != '\n' && buf.get(i - 1) != '\r') {
+                    i--;
+                }
+                return i;
+            }
         }
+        return Integer.MAX_VALUE;
+    }
+
+    public List<Token> getTokens() {
+        return this.tokens;
     }
 
-    public void createXML() {
+    public static void writeXML(List<Token> tokens, File file) {
         try {
             DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
             DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
@@ -130,7 +316,7 @@ public class Lexer {
             transformer.setOutputProperty(OutputKeys.INDENT, "yes");
 
             DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(new File("tokens.xml"));
+            StreamResult result = new StreamResult(file);
             transformer.transform(source, result);
             
             
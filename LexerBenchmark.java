@@ -0,0 +1,135 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Compares the DFA scanner in Lexer (heap and memory-mapped input) against the regex-based readFile it replaced.
+// Usage: java LexerBenchmark [megabytes] [iterations]
+public class LexerBenchmark {
+    private static final Set<String> reserved_keywords = new HashSet<>(Arrays.asList(
+            "main", "begin", "end", "skip", "halt", "print", "if", "then", "else",
+            "num", "text", "void", "not", "sqrt", "or", "and", "eq", "grt", "add", "sub", "mul", "div",
+            "< input", "=", "(", ")", ",", ";", "{", "}","return"));
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("V_[a-z][a-z0-9]*");
+    private static final Pattern FUNCTION_PATTERN = Pattern.compile("F_[a-z][a-z0-9]*");
+    private static final Pattern STRING_PATTERN = Pattern.compile("\"[A-Z][a-z]{0,7}\"");
+    private static final Pattern NUMBER_PATTERN = Pattern
+            .compile("(0|([1-9][0-9]*))(\\.[0-9]+)?|-0(\\.[0-9]+)?|-[1-9][0-9]*(\\.[0-9]+)?");
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File source = File.createTempFile("lexer-benchmark", ".txt");
+        source.deleteOnExit();
+        writeProgram(source, megabytes * 1024L * 1024L);
+        System.out.println("Input: " + source.length() / 1024 + " KB");
+
+        List<Token> expected = regexLexer(source.getPath());
+        List<Token> actual = new Lexer(source.getPath()).getTokens();
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Token count differs: " + expected.size() + " vs " + actual.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).getToken().equals(actual.get(i).getToken())
+                    || !expected.get(i).getTokenClass().equals(actual.get(i).getTokenClass())) {
+                throw new IllegalStateException("Token " + i + " differs: " + expected.get(i) + " vs " + actual.get(i));
+            }
+        }
+
+        double mb = source.length() / (1024.0 * 1024.0);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            int regexCount = regexLexer(source.getPath()).size();
+            long regexTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int dfaCount = new Lexer(source.getPath(), false).getTokens().size();
+            long dfaTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int mappedCount = new Lexer(source.getPath(), true).getTokens().size();
+            long mappedTime = System.nanoTime() - start;
+
+            System.out.printf("run %d: regex %d tokens %.1f MB/s, dfa %d tokens %.1f MB/s, mapped %d tokens %.1f MB/s%n",
+                    i + 1, regexCount, mb / (regexTime / 1e9), dfaCount, mb / (dfaTime / 1e9),
+                    mappedCount, mb / (mappedTime / 1e9));
+        }
+    }
+
+    private static void writeProgram(File file, long bytes) throws IOException {
+        String[] commands = {
+                "V_x = add ( V_x , 1 ) ;",
+                "V_y < input ;",
+                "print V_counter2 ;",
+                "V_s = \"Hello\" ;",
+                "V_z = mul ( -12.5 , sub ( V_y , 0.25 ) ) ;",
+                "if grt ( V_x , 10 ) then begin V_r = F_fact ( V_x , 0 , 1 ) ; end else begin skip ; end ;",
+        };
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("main\n    num V_x , num V_y , num V_z , num V_r , text V_s ,\n    begin\n");
+            long written = 0;
+            for (int i = 0; written < bytes; i++) {
+                String line = "        " + commands[i % commands.length] + "\n";
+                writer.write(line);
+                written += line.length();
+            }
+            writer.write("    end\n");
+        }
+    }
+
+    // The Lexer.readFile implementation before the DFA scanner, kept as the reference
+    private static List<Token> regexLexer(String fileName) throws SyntaxException, IOException {
+        List<Token> tokens = new ArrayList<>();
+        Scanner sc = new Scanner(new File(fileName));
+        while (sc.hasNextLine()) {
+            String line = sc.nextLine().trim();
+            if (line.isEmpty()) continue;
+
+            if (line.contains("<_input")) {
+                throw new SyntaxException("Invalid token '<_input' encountered in the source code.");
+            }
+
+            line = line.replace("< input", "<_input");
+
+            for (String token : line.split("\\s+")) {
+                token = token.trim();
+                if (token.isEmpty()) continue;
+                if (token.equals("<_input")) {
+                    token = "< input";
+                }
+
+                Matcher matcher;
+                if (reserved_keywords.contains(token)) {
+                    tokens.add(new Token(tokens.size() + 1, token, "reserved_keyword"));
+                    continue;
+                }
+                matcher = VARIABLE_PATTERN.matcher(token);
+                if (matcher.matches()) {
+                    tokens.add(new Token(tokens.size() + 1, token, "V_"));
+                    continue;
+                }
+                matcher = FUNCTION_PATTERN.matcher(token);
+                if (matcher.matches()) {
+                    tokens.add(new Token(tokens.size() + 1, token, "F_"));
+                    continue;
+                }
+                matcher = STRING_PATTERN.matcher(token);
+                if (matcher.matches()) {
+                    tokens.add(new Token(tokens.size() + 1, token, "T_"));
+                    continue;
+                }
+                matcher = NUMBER_PATTERN.matcher(token);
+                if (matcher.matches()) {
+                    tokens.add(new Token(tokens.size() + 1, token, "N_"));
+                    continue;
+                }
+                throw new SyntaxException("Token does not belong to any class. Lexical Error! from token: " + token);
+            }
+        }
+        sc.close();
+        return tokens;
+    }
+}
@@ -1,75 +1,194 @@
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 public class Main {
 
     public static void main(String[] args) throws SyntaxException, Exception {
-        Lexer lexer;
-        lexer = new Lexer("input.txt");
-        lexer.createXML();
+        // the token and tree artifacts are side outputs only; the phases hand their results over in memory
+        String artifactFormat = "xml";
+        String batch = null;
+        String outputDirectory = "batch_output";
+        int threads = Runtime.getRuntime().availableProcessors();
+        String cacheDirectory = null;
+        long cacheMegabytes = 256;
+        for (String arg : args) {
+            if (arg.equals("--no-xml")) {
+                artifactFormat = "none";
+            } else if (arg.startsWith("--artifacts=")) {
+                artifactFormat = arg.substring("--artifacts=".length());
+                if (!artifactFormat.equals("xml") && !artifactFormat.equals("binary") && !artifactFormat.equals("none")) {
+                    throw new IllegalArgumentException("Unknown artifact format: " + artifactFormat);
+                }
+            } else if (arg.startsWith("--batch=")) {
+                batch = arg.substring("--batch=".length());
+            } else if (arg.startsWith("--out=")) {
+                outputDirectory = arg.substring("--out=".length());
+            } else if (arg.equals("--cache")) {
+                cacheDirectory = ".compile-cache";
+            } else if (arg.startsWith("--cache=")) {
+                cacheDirectory = arg.substring("--cache=".length());
+            } else if (arg.startsWith("--cache-size=")) {
+                cacheMegabytes = Long.parseLong(arg.substring("--cache-size=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        CompileCache cache = null;
+        if (cacheDirectory != null) {
+            cache = new CompileCache(Paths.get(cacheDirectory), cacheMegabytes * 1024 * 1024);
+        }
+
+        if (batch != null) {
+            BatchCompiler batchCompiler = new BatchCompiler(artifactFormat, new File(outputDirectory), threads, cache);
+            batchCompiler.run(BatchCompiler.findSources(batch));
+            return;
+        }
+
+        boolean keepParsedTree = !artifactFormat.equals("none");
+        Compiler.Compilation compilation;
+        Exception failure = null;
+        try {
+            compilation = new Compiler(keepParsedTree, cache).compile(Paths.get("input.txt"));
+        } catch (Compiler.CompilationException e) {
+            // still write out whatever the phases before the failing one produced
+            compilation = e.getPartial();
+            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
 
-        Parser lexerParser = new Parser();
-        String xmlFilePath = "tokens.xml";
+        ExecutorService artifactWriter = Executors.newSingleThreadExecutor();
+        List<Future<?>> artifacts = new ArrayList<>();
+        try {
+            List<Token> tokens = compilation.getTokens();
+            if (tokens != null) {
+                String format = artifactFormat;
+                artifacts.add(artifactWriter.submit(() -> {
+                    writeTokens(tokens, format, null);
+                    return null;
+                }));
+            }
+            SyntaxArena parsedTree = compilation.getParsedTree();
+            if (parsedTree != null) {
+                String format = artifactFormat;
+                artifacts.add(artifactWriter.submit(() -> {
+                    writeParsedTree(parsedTree, format, null);
+                    if (format.equals("xml")) {
+                        System.out.println("Syntax tree saved to syntax_tree.xml");
+                    }
+                    return null;
+                }));
+            }
+
+            writeOutputs(compilation, null, true);
+        } finally {
+            artifactWriter.shutdown();
+            artifactWriter.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        for (Future<?> artifact : artifacts) {
+            try {
+                artifact.get();
+            } catch (ExecutionException e) {
+                throw new Exception(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
-        List<Token> tokens = lexerParser.parseXmlInput(xmlFilePath);
+    // tokens.xml or tokens.bin in directory (null for the working directory)
+    static void writeTokens(List<Token> tokens, String artifactFormat, File directory) throws IOException {
+        if (artifactFormat.equals("xml")) {
+            Lexer.writeXML(tokens, new File(directory, "tokens.xml"));
+        } else if (artifactFormat.equals("binary")) {
+            TokenStreamFile.write(tokens, new File(directory, "tokens.bin").getPath());
+        }
+    }
 
-        lexerParser.parse(tokens);
+    // syntax_tree.xml or syntax_tree.bin in directory (null for the working directory)
+    static void writeParsedTree(SyntaxArena parsedTree, String artifactFormat, File directory) throws Exception {
+        if (artifactFormat.equals("xml")) {
+            try {
+                new SyntaxTree(parsedTree).saveToXML(new File(directory, "syntax_tree.xml").getPath());
+            } catch (Exception e) {
+                throw new Exception("Error saving syntax tree: " + e.getMessage());
+            }
+        } else if (artifactFormat.equals("binary")) {
+            parsedTree.saveToBinary(new File(directory, "syntax_tree.bin").getPath());
+        }
+    }
 
-        ScopeAnalysis sA = new ScopeAnalysis();
-        SyntaxTree syntaxTree = sA.parseXMLToSyntaxTree("syntax_tree.xml");
-        
-        sA.analyze(syntaxTree.getRoot());
-        TypeChecker tC = new TypeChecker(sA.getLargeSymbolTable());
-        boolean type = tC.typeCheck(syntaxTree.getRoot());
-        //syntaxTree.printSyntaxTree();
-        System.out.println("Type check: " + type);
-        if(!type)
-        {
-            throw new Exception("Type check failed");   
-        }
-        Map<Integer, SymbolTable.VariableInfo> sT = tC.getLargeSymbolTable();
-        String symbols = tC.printSymbolTable();
-        System.out.println(symbols);
+    // symbol_table.txt, Phase5A.txt and Phase5B.txt in directory (null for the working directory), as far as
+    // the compilation got; echo also prints them the way a single compile always has
+    static void writeOutputs(Compiler.Compilation compilation, File directory, boolean echo) {
+        if (echo && compilation.isCacheHit()) {
+            System.out.println("Compile cache hit");
+        }
+        if (echo && compilation.getAnalyzedTree() != null) {
+            System.out.println("Type check: " + (compilation.getSymbolTable() != null));
+        }
+        String symbols = compilation.getSymbolTableText();
+        if (symbols == null) {
+            return;
+        }
+        if (echo) {
+            System.out.println(symbols);
+        }
         try {
-            FileWriter myWriter = new FileWriter("symbol_table.txt");
+            FileWriter myWriter = new FileWriter(new File(directory, "symbol_table.txt"));
             myWriter.write(symbols);
             myWriter.close();
-            
+
         } catch (IOException e) {
             System.out.println("An error occurred.");
             e.printStackTrace();
         }
-        CodeGeneration intermediateCode = new CodeGeneration(sT);
-        String result = intermediateCode.translate(syntaxTree.getRoot().children.get(0), null);
+        String result = compilation.getIntermediateCode();
+        if (result == null) {
+            return;
+        }
         //save this result in a txt file
         try {
-            FileWriter myWriter = new FileWriter("Phase5A.txt");
+            FileWriter myWriter = new FileWriter(new File(directory, "Phase5A.txt"));
             myWriter.write(result);
             myWriter.close();
             //System.out.println(result);
-            System.out.println("Successfully wrote to Phase5A.txt\n");
+            if (echo) {
+                System.out.println("Successfully wrote to Phase5A.txt\n");
+            }
 
         } catch (IOException e) {
         System.out.println("An error occurred.");
         e.printStackTrace();
         }
 
-        //intermediateCode.processFunctionCalls("Phase5A.txt",syntaxTree.getRoot().children.get(0));
-
-        TargetCodeGeneration aCG = new TargetCodeGeneration(sT);
-        String result1 = aCG.generateBasicCode(syntaxTree.getRoot().children.get(0));
-        System.err.println(result1);
+        String result1 = compilation.getTargetCode();
+        if (result1 == null) {
+            return;
+        }
+        if (echo) {
+            System.err.println(result1);
+        }
         try {
-            FileWriter myWriter = new FileWriter("Phase5B.txt");
+            FileWriter myWriter = new FileWriter(new File(directory, "Phase5B.txt"));
             myWriter.write(result1);
             myWriter.close();
-            
+
         } catch (IOException e) {
             System.out.println("An error occurred.");
             e.printStackTrace();
         }
-         
+
     }
-}
\ No newline at end of file
+}
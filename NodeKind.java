@@ -0,0 +1,138 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// The grammar symbol a syntax tree node stands for. The parser tags every node with one, so the passes
+// switch on it instead of comparing node text; the text itself only matters for names and literals.
+public enum NodeKind {
+    // nonterminals
+    S("S"),
+    PROG("PROG"),
+    GLOBVARS("GLOBVARS"),
+    VTYP("VTYP"),
+    VNAME("VNAME"),
+    ALGO("ALGO"),
+    INSTRUC("INSTRUC"),
+    COMMAND("COMMAND"),
+    ATOMIC("ATOMIC"),
+    CONST("CONST"),
+    ASSIGN("ASSIGN"),
+    CALL("CALL"),
+    BRANCH("BRANCH"),
+    TERM("TERM"),
+    OP("OP"),
+    ARG("ARG"),
+    COND("COND"),
+    SIMPLE("SIMPLE"),
+    COMPOSIT("COMPOSIT"),
+    UNOP("UNOP"),
+    BINOP("BINOP"),
+    FNAME("FNAME"),
+    FUNCTIONS("FUNCTIONS"),
+    DECL("DECL"),
+    HEADER("HEADER"),
+    FTYP("FTYP"),
+    BODY("BODY"),
+    PROLOG("PROLOG"),
+    EPILOG("EPILOG"),
+    LOCVARS("LOCVARS"),
+    SUBFUNCS("SUBFUNCS"),
+
+    // terminals; the four token classes stand for every name or literal of that class
+    MAIN("main"),
+    COMMA(","),
+    NUM("num"),
+    TEXT("text"),
+    VARIABLE_NAME("V_"),
+    BEGIN("begin"),
+    END("end"),
+    SEMICOLON(";"),
+    SKIP("skip"),
+    HALT("halt"),
+    PRINT("print"),
+    RETURN("return"),
+    NUMBER_LITERAL("N_"),
+    TEXT_LITERAL("T_"),
+    INPUT("< input"),
+    EQUALS("="),
+    LEFT_PAREN("("),
+    RIGHT_PAREN(")"),
+    IF("if"),
+    THEN("then"),
+    ELSE("else"),
+    NOT("not"),
+    SQRT("sqrt"),
+    OR("or"),
+    AND("and"),
+    EQ("eq"),
+    GRT("grt"),
+    ADD("add"),
+    SUB("sub"),
+    MUL("mul"),
+    DIV("div"),
+    FUNCTION_NAME("F_"),
+    VOID("void"),
+    LEFT_BRACE("{"),
+    RIGHT_BRACE("}"),
+    END_OF_INPUT("$"),
+
+    // the leaf under a nonterminal that derived the empty string
+    EPSILON("e");
+
+    public final String symbol;
+
+    NodeKind(String symbol) {
+        this.symbol = symbol;
+    }
+
+    private static final Map<String, NodeKind> BY_SYMBOL = new HashMap<>();
+    // Indexed like ParserTables.TERMINALS and ParserTables.NON_TERMINALS
+    private static final NodeKind[] TERMINAL_KINDS = new NodeKind[ParserTables.TERMINALS.length];
+    private static final NodeKind[] NON_TERMINAL_KINDS = new NodeKind[ParserTables.NON_TERMINALS.length];
+
+    static {
+        for (NodeKind kind : values()) {
+            BY_SYMBOL.put(kind.symbol, kind);
+        }
+        for (int i = 0; i < TERMINAL_KINDS.length; i++) {
+            TERMINAL_KINDS[i] = bySymbol(ParserTables.TERMINALS[i]);
+        }
+        for (int i = 0; i < NON_TERMINAL_KINDS.length; i++) {
+            NON_TERMINAL_KINDS[i] = bySymbol(ParserTables.NON_TERMINALS[i]);
+        }
+    }
+
+    private static NodeKind bySymbol(String symbol) {
+        NodeKind kind = BY_SYMBOL.get(symbol);
+        if (kind == null) {
+            throw new IllegalStateException("No NodeKind for grammar symbol " + symbol);
+        }
+        return kind;
+    }
+
+    public static NodeKind terminal(int terminal) {
+        return TERMINAL_KINDS[terminal];
+    }
+
+    public static NodeKind nonTerminal(int nonTerminal) {
+        return NON_TERMINAL_KINDS[nonTerminal];
+    }
+
+    // The kind of a node known only by its text, as read back from a saved tree: a grammar symbol, or a
+    // name or literal classified the way the Lexer does
+    public static NodeKind of(String value) {
+        NodeKind kind = BY_SYMBOL.get(value);
+        if (kind != null) {
+            return kind;
+        }
+        if (value.startsWith("V_")) {
+            return VARIABLE_NAME;
+        }
+        if (value.startsWith("F_")) {
+            return FUNCTION_NAME;
+        }
+        if (value.startsWith("\"")) {
+            return TEXT_LITERAL;
+        }
+        return NUMBER_LITERAL;
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.PrintStream;
+
+// Trace of the shift and reduce steps taken by Parser.parse, chosen with -Dparser.trace=off|ring|verbose.
+// The level is a static final, so with tracing off every trace call site in the driver is one constant
+// branch that the JIT removes. In ring mode each step is a few int writes into a fixed-size buffer that is
+// only decoded when a syntax error is reported; verbose mode also prints every step as it happens.
+public class ParseTrace {
+    public static final int OFF = 0;
+    public static final int RING = 1;
+    public static final int VERBOSE = 2;
+
+    public static final int LEVEL = level(System.getProperty("parser.trace", "off"));
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private static final int SHIFT = 0;
+    private static final int REDUCE = 1;
+    private static final int EVENT_SIZE = 4; // kind, token position or rule, state, terminal
+
+    private final int capacity;
+    private final int[] events;
+    private final PrintStream out; // where verbose mode prints each step
+    private long count; // events recorded since the last clear(); the newest is at (count - 1) % capacity
+
+    public ParseTrace() {
+        this(System.out);
+    }
+
+    public ParseTrace(PrintStream out) {
+        this(Integer.getInteger("parser.trace.size", DEFAULT_CAPACITY), out);
+    }
+
+    public ParseTrace(int capacity, PrintStream out) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trace capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.events = new int[capacity * EVENT_SIZE];
+        this.out = out;
+    }
+
+    private static int level(String name) {
+        switch (name) {
+            case "off":
+                return OFF;
+            case "ring":
+                return RING;
+            case "verbose":
+                return VERBOSE;
+            default:
+                throw new IllegalArgumentException("Unknown parser.trace level: " + name);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public void token(Token token) {
+        if (LEVEL == VERBOSE) {
+            out.println("Current token: " + token.getToken());
+        }
+    }
+
+    public void shift(int position, int terminal, int state) {
+        record(SHIFT, position, state, terminal);
+        if (LEVEL == VERBOSE) {
+            out.println("Shifted to state " + state);
+        }
+    }
+
+    public void reduce(int rule, int top, int state) {
+        record(REDUCE, rule, state, -1);
+        if (LEVEL == VERBOSE) {
+            out.println("Length of rule: " + ParserTables.RULE_LENGTH[rule] + " Rule: " + rule);
+            out.println("Top of stack: " + top);
+            out.println("Reduced using rule " + rule);
+        }
+    }
+
+    private void record(int kind, int argument, int state, int terminal) {
+        int slot = (int) (count++ % capacity) * EVENT_SIZE;
+        events[slot] = kind;
+        events[slot + 1] = argument;
+        events[slot + 2] = state;
+        events[slot + 3] = terminal;
+    }
+
+    // Writes the recorded steps, oldest first
+    public void dump(PrintStream out) {
+        long first = Math.max(0, count - capacity);
+        out.println("Last " + (count - first) + " of " + count + " parser steps:");
+        for (long event = first; event < count; event++) {
+            int slot = (int) (event % capacity) * EVENT_SIZE;
+            if (events[slot] == SHIFT) {
+                out.println("  shift  token " + events[slot + 1] + " '" + ParserTables.TERMINALS[events[slot + 3]]
+                        + "' -> state " + events[slot + 2]);
+            } else {
+                out.println("  reduce " + Parser.grammarRules[events[slot + 1]] + " -> state " + events[slot + 2]);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+// Compares the LR driver in Parser (int[] stacks) against the Stack-based driver it replaced.
+// The reference driver has its step printing removed, so run with tracing off (the default) to compare like
+// with like. Both drivers report the outcome to a discarded stream while timing.
+// Usage: java ParserBenchmark [statements] [iterations]
+public class ParserBenchmark {
+    private static final HashMap<String, Integer> terminals = new HashMap<>();
+    private static final String[] ruleLhsNames = new String[Parser.grammarRules.length];
+
+    static {
+        for (int terminal = 0; terminal < ParserTables.TERMINALS.length; terminal++) {
+            terminals.put(ParserTables.TERMINALS[terminal], terminal);
+        }
+        for (int rule = 0; rule < Parser.grammarRules.length; rule++) {
+            ruleLhsNames[rule] = Parser.grammarRules[rule].split(" -> ")[0];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File source = File.createTempFile("parser-benchmark", ".txt");
+        source.deleteOnExit();
+        writeProgram(source, statements);
+        List<Token> tokens = new Lexer(source.getPath()).getTokens();
+        System.out.println("Input: " + statements + " statements, " + tokens.size() + " tokens");
+
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        String expected = shape(stackParse(tokens, quiet).getArena());
+        String actual = shape(new Parser(quiet).parse(tokens).getArena());
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Syntax trees differ");
+        }
+
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            stackParse(tokens, quiet);
+            long stackTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            new Parser(quiet).parse(tokens);
+            long arrayTime = System.nanoTime() - start;
+
+            System.out.printf("run %d: Stack %.0f tokens/s, int[] %.0f tokens/s%n",
+                    i + 1, tokens.size() / (stackTime / 1e9), tokens.size() / (arrayTime / 1e9));
+        }
+    }
+
+    private static void writeProgram(File file, int statements) throws IOException {
+        String[] commands = {
+                "V_x = add ( V_x , 1 ) ;",
+                "V_y < input ;",
+                "print V_x ;",
+                "V_s = \"Hello\" ;",
+                "V_z = mul ( V_x , sub ( V_y , 0.25 ) ) ;",
+                "if grt ( V_x , 10 ) then begin V_r = F_fact ( V_x , 0 , 1 ) ; end else begin skip ; end ;",
+        };
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("main\n    num V_x , num V_y , num V_z , num V_r , text V_s ,\n    begin\n");
+            for (int i = 0; i < statements; i++) {
+                writer.write("        " + commands[i % commands.length] + "\n");
+            }
+            writer.write("    end\n");
+        }
+    }
+
+    // Preorder rendering of the tree, for checking that both drivers build the same one
+    private static String shape(SyntaxArena tree) {
+        StringBuilder sb = new StringBuilder();
+        for (int node = tree.root(); node != SyntaxArena.NONE; node = tree.nextInPreorder(node)) {
+            sb.append(tree.unid(node)).append(' ').append(tree.value(node)).append(' ').append(tree.childCount(node))
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    // The Parser.parse loop before the primitive stacks, without its step printing, kept as the reference
+    private static SyntaxTree stackParse(List<Token> tokens, PrintStream out) throws Exception {
+        SyntaxArena tree = new SyntaxArena(256);
+        int unid = 0;
+        Stack<Integer> stack = new Stack<>();
+        Stack<Integer> nodeStack = new Stack<>();
+        int root = tree.add(ruleLhsNames[0], unid++);
+        stack.push(0);
+
+        int i = 0;
+        while (i <= tokens.size()) {
+            Token currentToken = i < tokens.size() ? tokens.get(i) : new Token(i, "$", "$");
+            int state = stack.peek();
+            String tokenClass = currentToken.getTokenClass();
+
+            int token;
+            if (tokenClass.equals("V_") || tokenClass.equals("F_") || tokenClass.equals("N_") || tokenClass.equals("T_"))
+                token = terminals.get(tokenClass);
+            else
+                token = terminals.get(currentToken.getToken());
+
+            int action = ParserTables.action(state, token);
+
+            if (action == 0) {
+                out.println("Syntax Error");
+                throw new Exception("Syntax Error");
+            }
+
+            if (action == ParserTables.ACCEPT) {
+                tree.link(root, SyntaxArena.NONE, nodeStack.pop());
+                out.println("Accepted");
+                return new SyntaxTree(tree);
+            } else if (action > 0) {
+                int nextState = action - 1;
+                stack.push(nextState);
+                int leaf = tree.add(currentToken.getToken(), unid++);
+                nodeStack.push(leaf);
+                i++;
+            } else {
+                int rule = -action - 1;
+                int length = ParserTables.RULE_LENGTH[rule];
+                List<Integer> children = new ArrayList<>();
+
+                for (int j = 0; j < length; j++) {
+                    stack.pop();
+                    children.add(0, nodeStack.pop());
+                }
+
+                int newState = ParserTables.goTo(stack.peek(), ParserTables.RULE_LHS[rule]);
+                stack.push(newState);
+
+                int innerNode = tree.add(ruleLhsNames[rule], unid++);
+                int previous = SyntaxArena.NONE;
+                for (int child : children) {
+                    tree.link(innerNode, previous, child);
+                    previous = child;
+                }
+
+                if (children.isEmpty()) {
+                    tree.link(innerNode, SyntaxArena.NONE, tree.add("e", unid++));
+                }
+
+                nodeStack.push(innerNode);
+            }
+        }
+        throw new Exception("Syntax Error: unexpected end of input");
+    }
+}
@@ -0,0 +1,443 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+// Build-time generator for ParserTables. Reads Parser.grammarRules, builds the LALR(1) automaton
+// (LR(0) item sets whose lookaheads are propagated until nothing changes) and writes the action and
+// goto tables as a row-displacement compressed class. Rule 0 is the start rule; reducing it on '$' accepts.
+// Usage: java ParserTableGenerator [ParserTables.java]
+public class ParserTableGenerator {
+    private static final String EPSILON = "''";
+    private static final String END = "$";
+    private static final int ACCEPT = Short.MIN_VALUE;
+
+    private final String[] grammarRules;
+    private final List<String> terminals = new ArrayList<>();
+    private final List<String> nonTerminals = new ArrayList<>();
+    private final Map<String, Integer> terminalIds = new HashMap<>();
+    private final Map<String, Integer> nonTerminalIds = new HashMap<>();
+    private int[] ruleLhs;
+    // right-hand sides as symbol codes: terminal t is t, non-terminal n is -(n + 1)
+    private int[][] ruleRhs;
+    private List<List<Integer>> rulesOf;
+    private boolean[] nullable;
+    private BitSet[] first;
+
+    private final List<State> states = new ArrayList<>();
+    private final Map<List<Integer>, State> statesByCore = new HashMap<>();
+    private final List<String> conflicts = new ArrayList<>();
+
+    private static class State {
+        int number;
+        List<Integer> core; // sorted kernel items, encoded as rule * 32 + dot
+        Map<Integer, BitSet> lookaheads = new HashMap<>();
+        Map<Integer, State> transitions = new TreeMap<>();
+    }
+
+    public ParserTableGenerator(String[] grammarRules) {
+        this.grammarRules = grammarRules;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String output = args.length > 0 ? args[0] : "ParserTables.java";
+        ParserTableGenerator generator = new ParserTableGenerator(Parser.grammarRules);
+        generator.generate();
+        if (!generator.conflicts.isEmpty()) {
+            for (String conflict : generator.conflicts) {
+                System.err.println(conflict);
+            }
+            System.err.println("The grammar is not LALR(1); " + output + " was not written.");
+            System.exit(1);
+        }
+        try (Writer writer = new FileWriter(output)) {
+            generator.writeTables(writer);
+        }
+        System.out.println("Wrote " + output + ": " + generator.states.size() + " states, "
+                + generator.terminals.size() + " terminals, " + generator.nonTerminals.size() + " non-terminals");
+    }
+
+    public void generate() {
+        readGrammar();
+        computeFirstSets();
+        buildAutomaton();
+    }
+
+    private void readGrammar() {
+        List<String[]> rhsNames = new ArrayList<>();
+        for (String rule : grammarRules) {
+            String[] sides = rule.split(" -> ");
+            if (sides.length != 2) {
+                throw new IllegalArgumentException("Malformed grammar rule: " + rule);
+            }
+            if (!nonTerminalIds.containsKey(sides[0])) {
+                nonTerminalIds.put(sides[0], nonTerminals.size());
+                nonTerminals.add(sides[0]);
+            }
+            rhsNames.add(splitRightHandSide(sides[1]));
+        }
+
+        ruleLhs = new int[grammarRules.length];
+        ruleRhs = new int[grammarRules.length][];
+        rulesOf = new ArrayList<>();
+        for (int i = 0; i < nonTerminals.size(); i++) {
+            rulesOf.add(new ArrayList<>());
+        }
+        for (int rule = 0; rule < grammarRules.length; rule++) {
+            ruleLhs[rule] = nonTerminalIds.get(grammarRules[rule].split(" -> ")[0]);
+            rulesOf.get(ruleLhs[rule]).add(rule);
+            String[] names = rhsNames.get(rule);
+            ruleRhs[rule] = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                Integer nonTerminal = nonTerminalIds.get(names[i]);
+                if (nonTerminal != null) {
+                    ruleRhs[rule][i] = -(nonTerminal + 1);
+                } else {
+                    if (!terminalIds.containsKey(names[i])) {
+                        terminalIds.put(names[i], terminals.size());
+                        terminals.add(names[i]);
+                    }
+                    ruleRhs[rule][i] = terminalIds.get(names[i]);
+                }
+            }
+            if (names.length > 31) {
+                throw new IllegalArgumentException("Rule too long: " + grammarRules[rule]);
+            }
+        }
+        terminalIds.put(END, terminals.size());
+        terminals.add(END);
+    }
+
+    // Symbols are separated by single spaces, except for the two-word terminal '< input'
+    private static String[] splitRightHandSide(String rhs) {
+        if (rhs.trim().equals(EPSILON)) {
+            return new String[0];
+        }
+        List<String> symbols = new ArrayList<>();
+        String[] words = rhs.trim().split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].equals("<") && i + 1 < words.length && words[i + 1].equals("input")) {
+                symbols.add("< input");
+                i++;
+            } else {
+                symbols.add(words[i]);
+            }
+        }
+        return symbols.toArray(new String[0]);
+    }
+
+    private void computeFirstSets() {
+        nullable = new boolean[nonTerminals.size()];
+        first = new BitSet[nonTerminals.size()];
+        for (int i = 0; i < first.length; i++) {
+            first[i] = new BitSet();
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int rule = 0; rule < grammarRules.length; rule++) {
+                int lhs = ruleLhs[rule];
+                BitSet before = (BitSet) first[lhs].clone();
+                boolean allNullable = firstOfSequence(ruleRhs[rule], 0, first[lhs]);
+                if (allNullable && !nullable[lhs]) {
+                    nullable[lhs] = true;
+                    changed = true;
+                }
+                if (!before.equals(first[lhs])) {
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    // Adds FIRST(symbols[from..]) to into and returns whether that whole suffix can derive the empty string
+    private boolean firstOfSequence(int[] symbols, int from, BitSet into) {
+        for (int i = from; i < symbols.length; i++) {
+            int symbol = symbols[i];
+            if (symbol >= 0) {
+                into.set(symbol);
+                return false;
+            }
+            int nonTerminal = -symbol - 1;
+            into.or(first[nonTerminal]);
+            if (!nullable[nonTerminal]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void buildAutomaton() {
+        BitSet endOnly = new BitSet();
+        endOnly.set(terminalIds.get(END));
+        Map<Integer, BitSet> startKernel = new HashMap<>();
+        startKernel.put(item(0, 0), endOnly);
+
+        Deque<State> work = new ArrayDeque<>();
+        stateFor(startKernel, work);
+        while (!work.isEmpty()) {
+            State state = work.poll();
+            Map<Integer, Map<Integer, BitSet>> kernels = new TreeMap<>();
+            for (Map.Entry<Integer, BitSet> entry : closure(state.lookaheads).entrySet()) {
+                int rule = entry.getKey() / 32;
+                int dot = entry.getKey() % 32;
+                if (dot < ruleRhs[rule].length) {
+                    kernels.computeIfAbsent(ruleRhs[rule][dot], symbol -> new HashMap<>())
+                            .computeIfAbsent(item(rule, dot + 1), next -> new BitSet())
+                            .or(entry.getValue());
+                }
+            }
+            for (Map.Entry<Integer, Map<Integer, BitSet>> entry : kernels.entrySet()) {
+                state.transitions.put(entry.getKey(), stateFor(entry.getValue(), work));
+            }
+        }
+    }
+
+    // Finds the state with this kernel core, creating it or merging in new lookaheads (and revisiting it) as needed
+    private State stateFor(Map<Integer, BitSet> kernel, Deque<State> work) {
+        List<Integer> core = new ArrayList<>(new TreeSet<>(kernel.keySet()));
+        State state = statesByCore.get(core);
+        if (state == null) {
+            state = new State();
+            state.number = states.size();
+            state.core = core;
+            for (Map.Entry<Integer, BitSet> entry : kernel.entrySet()) {
+                state.lookaheads.put(entry.getKey(), (BitSet) entry.getValue().clone());
+            }
+            states.add(state);
+            statesByCore.put(core, state);
+            work.add(state);
+            return state;
+        }
+
+        boolean changed = false;
+        for (Map.Entry<Integer, BitSet> entry : kernel.entrySet()) {
+            BitSet lookahead = state.lookaheads.get(entry.getKey());
+            BitSet merged = (BitSet) lookahead.clone();
+            merged.or(entry.getValue());
+            if (!merged.equals(lookahead)) {
+                state.lookaheads.put(entry.getKey(), merged);
+                changed = true;
+            }
+        }
+        if (changed && !work.contains(state)) {
+            work.add(state);
+        }
+        return state;
+    }
+
+    private Map<Integer, BitSet> closure(Map<Integer, BitSet> kernel) {
+        Map<Integer, BitSet> items = new TreeMap<>();
+        Deque<Integer> work = new ArrayDeque<>();
+        for (Map.Entry<Integer, BitSet> entry : kernel.entrySet()) {
+            items.put(entry.getKey(), (BitSet) entry.getValue().clone());
+            work.add(entry.getKey());
+        }
+
+        while (!work.isEmpty()) {
+            int current = work.poll();
+            int rule = current / 32;
+            int dot = current % 32;
+            if (dot >= ruleRhs[rule].length || ruleRhs[rule][dot] >= 0) {
+                continue;
+            }
+            BitSet lookahead = new BitSet();
+            if (firstOfSequence(ruleRhs[rule], dot + 1, lookahead)) {
+                lookahead.or(items.get(current));
+            }
+            for (int produced : rulesOf.get(-ruleRhs[rule][dot] - 1)) {
+                int next = item(produced, 0);
+                BitSet existing = items.get(next);
+                if (existing == null) {
+                    items.put(next, (BitSet) lookahead.clone());
+                    work.add(next);
+                } else {
+                    BitSet merged = (BitSet) existing.clone();
+                    merged.or(lookahead);
+                    if (!merged.equals(existing)) {
+                        items.put(next, merged);
+                        work.add(next);
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    private static int item(int rule, int dot) {
+        return rule * 32 + dot;
+    }
+
+    private int[][] actionRows() {
+        int[][] rows = new int[states.size()][terminals.size()];
+        for (State state : states) {
+            int[] row = rows[state.number];
+            for (Map.Entry<Integer, State> transition : state.transitions.entrySet()) {
+                if (transition.getKey() >= 0) {
+                    row[transition.getKey()] = transition.getValue().number + 1;
+                }
+            }
+            for (Map.Entry<Integer, BitSet> entry : closure(state.lookaheads).entrySet()) {
+                int rule = entry.getKey() / 32;
+                if (entry.getKey() % 32 != ruleRhs[rule].length) {
+                    continue;
+                }
+                BitSet lookahead = entry.getValue();
+                for (int t = lookahead.nextSetBit(0); t >= 0; t = lookahead.nextSetBit(t + 1)) {
+                    int action = rule == 0 ? ACCEPT : -(rule + 1);
+                    if (row[t] != 0 && row[t] != action) {
+                        conflicts.add("Conflict in state " + state.number + " on '" + terminals.get(t) + "': "
+                                + describe(row[t]) + " vs " + describe(action));
+                    } else {
+                        row[t] = action;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private int[][] gotoRows() {
+        int[][] rows = new int[states.size()][nonTerminals.size()];
+        for (State state : states) {
+            Arrays.fill(rows[state.number], -1);
+            for (Map.Entry<Integer, State> transition : state.transitions.entrySet()) {
+                if (transition.getKey() < 0) {
+                    rows[state.number][-transition.getKey() - 1] = transition.getValue().number;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private String describe(int action) {
+        if (action == ACCEPT) {
+            return "accept";
+        }
+        return action > 0 ? "shift " + (action - 1) : "reduce " + grammarRules[-action - 1];
+    }
+
+    // Row displacement: every row is placed at the lowest offset where its entries land on free slots,
+    // and check[] records which row owns each slot
+    private static int[][] compress(int[][] rows, int empty, int width) {
+        Integer[] order = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(countEntries(rows[b], empty), countEntries(rows[a], empty)));
+
+        int[] base = new int[rows.length];
+        int[] check = new int[rows.length * width + width];
+        int[] value = new int[check.length];
+        Arrays.fill(check, -1);
+        int used = 0;
+        for (int row : order) {
+            int offset = 0;
+            while (!fits(rows[row], empty, check, offset)) {
+                offset++;
+            }
+            base[row] = offset;
+            for (int column = 0; column < width; column++) {
+                if (rows[row][column] != empty) {
+                    check[offset + column] = row;
+                    value[offset + column] = rows[row][column];
+                }
+            }
+            used = Math.max(used, offset + width);
+        }
+        return new int[][] { base, Arrays.copyOf(check, used), Arrays.copyOf(value, used) };
+    }
+
+    private static int countEntries(int[] row, int empty) {
+        int count = 0;
+        for (int entry : row) {
+            if (entry != empty) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean fits(int[] row, int empty, int[] check, int offset) {
+        for (int column = 0; column < row.length; column++) {
+            if (row[column] != empty && check[offset + column] != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeTables(Writer out) throws IOException {
+        int[][] action = compress(actionRows(), 0, terminals.size());
+        int[][] gotos = compress(gotoRows(), -1, nonTerminals.size());
+        int[] ruleLength = new int[grammarRules.length];
+        for (int rule = 0; rule < grammarRules.length; rule++) {
+            ruleLength[rule] = ruleRhs[rule].length;
+        }
+
+        out.write("// Generated by ParserTableGenerator from Parser.grammarRules. Do not edit by hand; after changing\n");
+        out.write("// the grammar regenerate it with: javac ParserTableGenerator.java && java ParserTableGenerator\n");
+        out.write("public final class ParserTables {\n");
+        out.write("    static final int GRAMMAR_HASH = " + Arrays.hashCode(grammarRules) + ";\n");
+        out.write("    static final int STATE_COUNT = " + states.size() + ";\n");
+        out.write("    static final int ACCEPT = Short.MIN_VALUE;\n\n");
+        out.write("    static final String[] TERMINALS = " + stringArray(terminals) + ";\n");
+        out.write("    static final String[] NON_TERMINALS = " + stringArray(nonTerminals) + ";\n\n");
+        out.write("    static final int[] RULE_LHS = unpack(" + packed(ruleLhs) + ");\n");
+        out.write("    static final int[] RULE_LENGTH = unpack(" + packed(ruleLength) + ");\n\n");
+        out.write("    // row-displacement compressed tables: row r owns slot base[r] + column when check[slot] == r\n");
+        out.write("    private static final int[] ACTION_BASE = unpack(" + packed(action[0]) + ");\n");
+        out.write("    private static final int[] ACTION_CHECK = unpack(" + packed(action[1]) + ");\n");
+        out.write("    private static final int[] ACTION_VALUE = unpack(" + packed(action[2]) + ");\n");
+        out.write("    private static final int[] GOTO_BASE = unpack(" + packed(gotos[0]) + ");\n");
+        out.write("    private static final int[] GOTO_CHECK = unpack(" + packed(gotos[1]) + ");\n");
+        out.write("    private static final int[] GOTO_VALUE = unpack(" + packed(gotos[2]) + ");\n\n");
+        out.write("    private ParserTables() {\n    }\n\n");
+        out.write("    // 0 for a syntax error, s + 1 to shift to state s, -(r + 1) to reduce by rule r, or ACCEPT\n");
+        out.write("    static int action(int state, int terminal) {\n");
+        out.write("        int slot = ACTION_BASE[state] + terminal;\n");
+        out.write("        return slot < ACTION_CHECK.length && ACTION_CHECK[slot] == state ? ACTION_VALUE[slot] : 0;\n");
+        out.write("    }\n\n");
+        out.write("    // the state to go to after reducing to nonTerminal, or -1 when there is none\n");
+        out.write("    static int goTo(int state, int nonTerminal) {\n");
+        out.write("        int slot = GOTO_BASE[state] + nonTerminal;\n");
+        out.write("        return slot < GOTO_CHECK.length && GOTO_CHECK[slot] == state ? GOTO_VALUE[slot] : -1;\n");
+        out.write("    }\n\n");
+        out.write("    // each table entry is stored as one char holding a 16-bit signed value\n");
+        out.write("    private static int[] unpack(String packed) {\n");
+        out.write("        int[] values = new int[packed.length()];\n");
+        out.write("        for (int i = 0; i < values.length; i++) {\n");
+        out.write("            values[i] = (short) packed.charAt(i);\n");
+        out.write("        }\n");
+        out.write("        return values;\n");
+        out.write("    }\n");
+        out.write("}\n");
+    }
+
+    private static String stringArray(List<String> values) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < values.size(); i++) {
+            sb.append(i % 8 == 0 ? "\n            " : " ");
+            sb.append('"').append(values.get(i).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            sb.append(i + 1 < values.size() ? "," : "");
+        }
+        return sb.append("\n    }").toString();
+    }
+
+    private static String packed(int[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < Short.MIN_VALUE || values[i] > Short.MAX_VALUE) {
+                throw new IllegalStateException("Table value out of range: " + values[i]);
+            }
+            if (i % 16 == 0) {
+                sb.append(i == 0 ? "\n            \"" : "\"\n            + \"");
+            }
+            int c = values[i] & 0xFFFF;
+            // octal escapes below 256: a \\u escape for a line break or quote would be translated before lexing
+            sb.append(c < 256 ? String.format("\\%03o", c) : String.format("\\u%04x", c));
+        }
+        return sb.append("\"").toString();
+    }
+}
@@ -0,0 +1,138 @@
+// Generated by ParserTableGenerator from Parser.grammarRules. Do not edit by hand; after changing
+// the grammar regenerate it with: javac ParserTableGenerator.java && java ParserTableGenerator
+public final class ParserTables {
+    static final int GRAMMAR_HASH = 1301594709;
+    static final int STATE_COUNT = 127;
+    static final int ACCEPT = Short.MIN_VALUE;
+
+    static final String[] TERMINALS = {
+            "main", ",", "num", "text", "V_", "begin", "end", ";",
+            "skip", "halt", "print", "return", "N_", "T_", "< input", "=",
+            "(", ")", "if", "then", "else", "not", "sqrt", "or",
+            "and", "eq", "grt", "add", "sub", "mul", "div", "F_",
+            "void", "{", "}", "$"
+    };
+    static final String[] NON_TERMINALS = {
+            "S", "PROG", "GLOBVARS", "VTYP", "VNAME", "ALGO", "INSTRUC", "COMMAND",
+            "ATOMIC", "CONST", "ASSIGN", "CALL", "BRANCH", "TERM", "OP", "ARG",
+            "COND", "SIMPLE", "COMPOSIT", "UNOP", "BINOP", "FNAME", "FUNCTIONS", "DECL",
+            "HEADER", "FTYP", "BODY", "PROLOG", "EPILOG", "LOCVARS", "SUBFUNCS"
+    };
+
+    static final int[] RULE_LHS = unpack(
+            "\000\001\002\002\003\003\004\005\006\006\007\007\007\007\007\007"
+            + "\007\010\010\011\011\012\012\013\014\015\015\015\016\016\017\017"
+            + "\020\020\021\022\022\023\023\024\024\024\024\024\024\024\024\025"
+            + "\026\026\027\030\031\031\032\033\034\035\036");
+    static final int[] RULE_LENGTH = unpack(
+            "\001\004\000\004\001\001\001\003\000\003\001\001\002\001\001\001"
+            + "\002\001\001\001\001\002\003\010\006\001\001\001\004\006\001\001"
+            + "\001\001\006\006\004\001\001\001\001\001\001\001\001\001\001\001"
+            + "\000\002\002\011\001\001\006\001\001\011\001");
+
+    // row-displacement compressed tables: row r owns slot base[r] + column when check[slot] == r
+    private static final int[] ACTION_BASE = unpack(
+            "\000\003\040\001\002\007\012\000\002\100\222\074\050\067\004\121"
+            + "\130\170\222\246\271\310\320\322\035\322\324\071\125\167\315\332"
+            + "\320\107\050\160\175\130\235\015\332\000\001\333\230\251\272\334"
+            + "\324\325\323\324\325\331\332\333\334\335\336\337\340\341\342\357"
+            + "\357\361\365\361\350\351\363\364\365\366\155\144\371\376\336\u0100"
+            + "\271\034\067\362\u0102\u0103\364\362\u0103\125\274\251\u0107\u0108\235\302"
+            + "\371\273\233\300\370\u0107\u010c\u0108\u0109\u010c\305\122\311\u0100\u0101\u010c"
+            + "\u0110\072\u0114\u0105\u0106\u0105\145\u0108\323\u0113\315\372\u0118\u011c\u0119");
+    private static final int[] ACTION_CHECK = unpack(
+            "\000\007\052\010\051\003\016\004\052\010\016\005\051\051\006\047"
+            + "\010\010\052\010\047\051\051\051\051\051\051\051\051\051\051\051"
+            + "\121\047\002\002\016\002\001\016\121\121\042\030\030\047\042\047"
+            + "\047\121\121\121\121\121\121\121\121\121\121\122\161\033\013\013"
+            + "\161\013\011\122\122\033\033\014\042\041\041\042\122\122\122\122"
+            + "\122\122\122\122\122\122\153\131\015\034\161\131\045\161\153\153"
+            + "\011\034\034\011\045\045\166\153\153\153\153\153\153\153\153\153"
+            + "\153\112\043\043\017\131\166\020\166\112\112\113\113\113\113\113"
+            + "\113\113\113\044\112\112\112\112\112\112\112\112\035\035\035\035"
+            + "\035\035\035\035\035\035\012\021\012\054\012\012\012\012\136\054"
+            + "\044\046\022\046\012\046\046\046\046\054\055\133\133\023\136\046"
+            + "\055\012\142\142\142\142\142\142\142\142\055\056\046\120\132\141"
+            + "\024\056\132\137\143\120\120\141\141\152\154\056\143\143\172\025"
+            + "\154\152\152\137\172\170\170\026\027\031\154\032\132\036\172\037"
+            + "\040\050\053\057\060\061\062\063\064\065\066\067\070\071\072\073"
+            + "\074\075\076\077\100\101\102\103\104\105\106\107\110\111\114\115"
+            + "\116\117\123\124\125\126\127\130\134\135\140\144\145\146\147\150"
+            + "\151\155\156\157\160\162\163\164\165\167\171\173\174\175\176\uffff"
+            + "\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff"
+            + "\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff");
+    private static final int[] ACTION_VALUE = unpack(
+            "\003\014\uffed\ufff9\011\011\021\013\uffed\ufff9\uffcf\ufffb\056\057\ufffa\ufff8"
+            + "\ufff9\ufff9\uffed\ufff9\ufff8\066\067\070\071\072\073\074\075\076\077\037"
+            + "\011\ufff8\006\007\022\ufffd\u8000\uffcf\056\057\uffcd\051\052\ufff8\uffcd\ufff8"
+            + "\ufff8\066\067\070\071\072\073\074\075\076\077\011\uffc9\011\006\007"
+            + "\uffc9\ufffd\021\056\057\056\057\037\uffcd\006\007\uffcd\066\067\070\071"
+            + "\072\073\074\075\076\077\011\021\044\011\uffc9\uffcf\011\uffc9\056\057"
+            + "\022\056\057\uffcf\056\057\uffdd\066\067\070\071\072\073\074\075\076"
+            + "\077\011\uffc8\uffc8\ufffe\022\uffdd\uffcb\uffdd\056\057\070\071\072\073\074"
+            + "\075\076\077\uffce\070\071\072\073\074\075\076\077\066\067\070\071"
+            + "\072\073\074\075\076\077\011\uffca\ufff7\uffee\032\033\034\035\uffe0\uffee"
+            + "\uffce\011\046\ufff7\036\032\033\034\035\uffee\uffec\006\007\ufff0\uffe0\036"
+            + "\uffec\037\070\071\072\073\074\075\076\077\uffec\uffeb\037\011\uffc7\011"
+            + "\ufff1\uffeb\uffc7\uffe1\011\056\057\056\057\011\uffe3\uffeb\056\057\uffe2\ufff2"
+            + "\uffe3\056\057\uffe1\uffe2\006\007\047\050\ufff5\uffe3\ufff4\uffc7\uffd0\uffe2\ufffc"
+            + "\100\uffea\ufff3\uffef\113\114\uffde\uffdf\115\uffda\uffd9\uffd8\uffd7\uffd6\uffd5\uffd4"
+            + "\uffd3\uffd2\uffd1\011\013\011\121\ufff6\122\123\uffe4\uffe9\uffe5\uffe6\013\131"
+            + "\133\134\142\143\144\145\146\011\153\154\155\uffdb\013\161\162\uffc5"
+            + "\011\166\167\uffe7\011\171\172\173\uffdc\174\uffe8\uffcc\011\177\uffc6\000"
+            + "\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000"
+            + "\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000");
+    private static final int[] GOTO_BASE = unpack(
+            "\000\000\000\006\012\000\000\000\000\106\022\003\027\073\113\000"
+            + "\000\000\000\000\000\000\000\000\000\000\000\010\027\077\000\000"
+            + "\000\004\000\000\000\074\036\000\000\000\000\000\000\000\000\000"
+            + "\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\016"
+            + "\051\060\000\000\000\000\000\000\000\000\103\006\064\000\043\000"
+            + "\141\047\051\000\000\000\000\000\075\102\000\103\000\000\000\000"
+            + "\000\143\022\151\000\105\000\000\000\142\153\072\000\000\000\000"
+            + "\144\000\000\000\000\000\000\000\153\000\000\000\154\000\000");
+    private static final int[] GOTO_CHECK = unpack(
+            "\uffff\000\002\002\051\013\013\041\051\051\003\051\033\051\051\004"
+            + "\033\033\077\051\051\051\012\113\012\012\113\034\012\012\012\034"
+            + "\034\041\046\142\046\046\142\012\046\046\046\121\014\122\100\121"
+            + "\121\122\122\046\101\121\121\122\122\114\121\121\122\122\153\116"
+            + "\045\130\153\153\045\045\133\112\153\153\145\112\112\153\153\035"
+            + "\035\035\035\035\112\015\015\112\131\131\131\131\011\011\011\011"
+            + "\131\016\016\016\016\120\151\141\160\120\120\141\141\143\170\152"
+            + "\174\143\143\152\152\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff"
+            + "\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff");
+    private static final int[] GOTO_VALUE = unpack(
+            "\000\001\004\003\054\037\003\101\111\052\007\110\054\107\106\011"
+            + "\053\052\115\105\104\022\030\126\027\026\123\054\025\024\023\057"
+            + "\052\100\030\155\103\026\123\022\025\024\023\054\040\054\116\137"
+            + "\052\137\052\022\117\136\135\136\140\127\105\104\105\104\054\131"
+            + "\054\146\137\052\102\052\151\054\136\164\157\125\052\105\104\064"
+            + "\063\062\061\060\124\042\041\123\150\016\015\014\017\016\015\014"
+            + "\147\044\016\015\014\054\162\054\167\134\052\125\052\054\174\054"
+            + "\175\156\052\163\052\000\000\000\000\000\000\000\000\000\000\000"
+            + "\000\000\000\000\000\000\000\000\000\000\000");
+
+    private ParserTables() {
+    }
+
+    // 0 for a syntax error, s + 1 to shift to state s, -(r + 1) to reduce by rule r, or ACCEPT
+    static int action(int state, int terminal) {
+        int slot = ACTION_BASE[state] + terminal;
+        return slot < ACTION_CHECK.length && ACTION_CHECK[slot] == state ? ACTION_VALUE[slot] : 0;
+    }
+
+    // the state to go to after reducing to nonTerminal, or -1 when there is none
+    static int goTo(int state, int nonTerminal) {
+        int slot = GOTO_BASE[state] + nonTerminal;
+        return slot < GOTO_CHECK.length && GOTO_CHECK[slot] == state ? GOTO_VALUE[slot] : -1;
+    }
+
+    // each table entry is stored as one char holding a 16-bit signed value
+    private static int[] unpack(String packed) {
+        int[] values = new int[packed.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (short) packed.charAt(i);
+        }
+        return values;
+    }
+}
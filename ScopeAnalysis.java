@@ -1,9 +1,4 @@
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.File;
+import java.io.PrintStream;
 import java.util.*;
 
 public class ScopeAnalysis {
@@ -14,8 +9,26 @@ public class ScopeAnalysis {
     private List<String> reservedKeywords;
     private List<UnresolvedFunctionCall> unresolvedCalls = new ArrayList<>();
     private Map<Integer, SymbolTable.VariableInfo> symbolTable = new HashMap<>();
+    private SyntaxArena tree;
+    private TypeChecker typeChecker;
+    private boolean wellTyped = true;
+    private int[] deferredTypeChecks = new int[16];
+    private int deferredCount;
+    private int nextScopeId;
+    private Map<String, ScopeIndex> declaringScopes = new HashMap<>(); // by declared name
+    private Map<String, ScopeIndex> scopesByName = new HashMap<>();
+    private List<SymbolTable> scopes = new ArrayList<>(); // by id
+    private Map<Integer, Map<String, SymbolTable.VariableInfo>> functionsDeclaredIn = new HashMap<>(); // by scope id
+    private final PrintStream out; // progress messages and the scope tree
+
+    private static final int LEAVE_PROG = -2; // not a node; below PROG's children on the walk's stack
 
     public ScopeAnalysis() {
+        this(System.out);
+    }
+
+    public ScopeAnalysis(PrintStream out) {
+        this.out = out;
         uniqueFunctionIdentifierCounter = 1;
         uniqueVariableIdentifierCounter = 1;
         uniqueAlgoIdentifierCounter = 1;
@@ -28,102 +41,83 @@ public class ScopeAnalysis {
 
     private static class UnresolvedFunctionCall {
         String functionName;
-        SyntaxTree.Node callNode;
+        int callNode;
         SymbolTable callScope;
 
-        public UnresolvedFunctionCall(String functionName, SyntaxTree.Node callNode, SymbolTable callScope) {
+        public UnresolvedFunctionCall(String functionName, int callNode, SymbolTable callScope) {
             this.functionName = functionName;
             this.callNode = callNode;
             this.callScope = callScope;
         }
     }
 
-    public SyntaxTree parseXMLToSyntaxTree(String filePath) {
-        SyntaxTree syntaxTree = new SyntaxTree();
-        Map<Integer, SyntaxTree.Node> nodeMap = new HashMap<>();
-        NodeList innerNodeList;
-        NodeList leafNodeList;
+    // A set of scopes, such as those declaring one name, bucketed by depth. Scopes of equal depth never nest,
+    // and a scope is added while it is the innermost open scope, so each bucket stays sorted by id.
+    private static class ScopeIndex {
+        List<List<SymbolTable>> byDepth = new ArrayList<>();
 
-        try {
-            File xmlFile = new File(filePath);
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(xmlFile);
-
-            doc.getDocumentElement().normalize();
-
-            Element rootElement = (Element) doc.getElementsByTagName("ROOT").item(0);
-            int rootUnid = Integer.parseInt(rootElement.getElementsByTagName("UNID").item(0).getTextContent());
-            String rootSymb = rootElement.getElementsByTagName("SYMB").item(0).getTextContent();
-            syntaxTree.createRoot(rootSymb, rootUnid);
-            nodeMap.put(rootUnid, syntaxTree.root);
-
-            // Parse and store inner nodes in nodeMap
-            innerNodeList = doc.getElementsByTagName("IN");
-            for (int i = 0; i < innerNodeList.getLength(); i++) {
-                Element inNodeElement = (Element) innerNodeList.item(i);
-                int unid = Integer.parseInt(inNodeElement.getElementsByTagName("UNID").item(0).getTextContent());
-                String symb = inNodeElement.getElementsByTagName("SYMB").item(0).getTextContent();
-                SyntaxTree.Node innerNode = syntaxTree.createInnerNode(symb, null, unid);
-                nodeMap.put(unid, innerNode);
+        void add(SymbolTable scope) {
+            while (byDepth.size() <= scope.getDepth()) {
+                byDepth.add(new ArrayList<>());
             }
+            byDepth.get(scope.getDepth()).add(scope);
+        }
 
-            // Parse and store leaf nodes in nodeMap
-            leafNodeList = doc.getElementsByTagName("LEAF");
-            for (int i = 0; i < leafNodeList.getLength(); i++) {
-                Element leafElement = (Element) leafNodeList.item(i);
-                int unid = Integer.parseInt(leafElement.getElementsByTagName("UNID").item(0).getTextContent());
-                String terminal = leafElement.getElementsByTagName("TERMINAL").item(0).getTextContent();
-                SyntaxTree.Node leafNode = syntaxTree.createLeafNode(terminal, null, unid);
-                nodeMap.put(unid, leafNode);
+        // The innermost scope of the set that is scope or encloses it, or null. Only the last scope at each
+        // depth entered no later than scope can enclose it.
+        SymbolTable innermostEnclosing(SymbolTable scope) {
+            for (int depth = Math.min(scope.getDepth(), byDepth.size() - 1); depth >= 0; depth--) {
+                List<SymbolTable> bucket = byDepth.get(depth);
+                int low = 0;
+                int high = bucket.size() - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    if (bucket.get(mid).getId() <= scope.getId()) {
+                        low = mid + 1;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                if (high >= 0 && bucket.get(high).isAncestorOf(scope)) {
+                    return bucket.get(high);
+                }
             }
+            return null;
+        }
+    }
 
-            // Build the tree recursively starting from the root node
-            buildTreeRecursively(syntaxTree.root, rootElement, innerNodeList, leafNodeList, nodeMap);
-
+    public SyntaxTree parseXMLToSyntaxTree(String filePath) {
+        try {
+            return SyntaxTree.loadFromXML(filePath);
         } catch (Exception e) {
             e.printStackTrace();
         }
 
-        return syntaxTree;
+        return new SyntaxTree();
     }
 
-    private void buildTreeRecursively(SyntaxTree.Node currentNode, Element currentElement, NodeList innerNodeList,
-            NodeList leafNodeList, Map<Integer, SyntaxTree.Node> nodeMap) {
-        NodeList children = currentElement.getElementsByTagName("CHILDREN").item(0).getChildNodes();
-
-        for (int i = 0; i < children.getLength(); i++) {
-            if (children.item(i).getNodeName().equals("ID")) {
-                int childUnid = Integer.parseInt(children.item(i).getTextContent());
-                SyntaxTree.Node childNode = nodeMap.get(childUnid);
-
-                if (childNode != null) {
-                    currentNode.children.add(childNode);
-                    childNode.parent = currentNode;
-
-                    // If the child is an inner node, recursively process its children
-                    for (int j = 0; j < innerNodeList.getLength(); j++) {
-                        Element innerElement = (Element) innerNodeList.item(j);
-                        int innerUnid = Integer
-                                .parseInt(innerElement.getElementsByTagName("UNID").item(0).getTextContent());
-
-                        if (innerUnid == childUnid) {
-                            buildTreeRecursively(childNode, innerElement, innerNodeList, leafNodeList, nodeMap);
-                        }
-                    }
-                }
-            }
+    public SyntaxTree parseBinaryToSyntaxTree(String filePath) {
+        try {
+            return SyntaxTree.loadFromBinary(filePath);
+        } catch (Exception e) {
+            e.printStackTrace();
         }
+
+        return new SyntaxTree();
     }
 
-    public void analyze(SyntaxTree.Node root) throws Exception {
-        if (root == null) {
+    public void analyze(SyntaxArena tree) throws Exception {
+        if (tree.root() == SyntaxArena.NONE) {
             throw new Exception("Invalid syntax tree.");
         }
-        traverseAndAnalyze(root);
+        this.tree = tree;
+        typeChecker = new TypeChecker(tree);
+        traverseAndAnalyze(tree.root());
 
         resolveFunctionCalls();
 
+        runDeferredTypeChecks();
+
         printScopeTree();
 
         consolidateSymbolTables();
@@ -132,444 +126,139 @@ public class ScopeAnalysis {
 
     }
 
-    private String typeOf(SyntaxTree.Node node) throws Exception {
-
-        // System.out.println("Node: " + node.value);
-
-        if (node.value.equals("VTYP")) {
-            if (node.children.get(0).value.equals("num")) {
-                return "n";
-            } else if (node.children.get(0).value.equals("text")) {
-                return "t";
-            } else {
-                throw new Exception("Invalid type.");
-            }
-        } else if (node.value.equals("FTYP")) {
-            if (node.children.get(0).value.equals("num")) {
-                return "n";
-            } else if (node.children.get(0).value.equals("void")) {
-                return "v";
-            } else {
-                throw new Exception("Invalid type.");
-            }
-
-        } else if (node.value.equals("ATOMIC")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("VNAME")) {
-            int varUnid = node.children.get(0).unid;
-            SymbolTable.VariableInfo variableInfo = symbolTable.get(varUnid);
-            if (variableInfo == null) {
-                throw new Exception("Variable '" + node.children.get(0).value + " ID: " + varUnid + "' not declared.");
-            }
-            // System.out.println("Variable '" + node.children.get(0).value + " ID: " + varUnid
-            //         + "' is declared with type " + variableInfo.type);
-            return variableInfo.type;
-        } else if (node.value.equals("CONST")) {
-            try {
-                Integer.parseInt(node.children.get(0).value);
-                return "n";
-            } catch (NumberFormatException e) {
-                return "t";
-            }
-        } else if (node.value.equals("FNAME")) {
-            int funUnid = node.children.get(0).unid;
-            SymbolTable.VariableInfo functionInfo = symbolTable.get(funUnid);
-            if (functionInfo == null) {
-                throw new Exception("Function '" + node.children.get(0).value + " ID: " + funUnid + "' not declared.");
-            }
-            // System.out.println("Function '" + node.children.get(0).value + " ID: " + funUnid
-            //         + "' is declared with type " + functionInfo.type);
-            return functionInfo.type;
-
-        } else if (node.value.equals("TERM")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("CALL")) {
-            String t1 = typeOf(node.children.get(2));
-            String t2 = typeOf(node.children.get(4));
-            String t3 = typeOf(node.children.get(6));
-            if (t1.equals(t2) && t2.equals(t3) && t1.equals("n")) {
-                String t4 = typeOf(node.children.get(0));
-
-                return t4;
-            } else {
-                return "u";
-            }
-        } else if (node.value.equals("UNOP")) {
-            if (node.children.get(0).value.equals("sqrt")) {
-                return "n";
-            } else if (node.children.get(0).value.equals("not")) {
-                return "b";
-            } else {
-                throw new Exception("Invalid type.");
-            }
-
-        } else if (node.value.equals("BINOP")) {
-            switch (node.children.get(0).value) {
-                case "add":
-                    return "n";
-                case "sub":
-                    return "n";
-                case "mul":
-                    return "n";
-                case "div":
-                    return "n";
-                case "eq":
-                    return "c";
-                case "grt":
-                    return "c";
-                case "or":
-                    return "b";
-                case "and":
-                    return "b";
-                default:
-                    throw new Exception("Invalid type.");
-            }
-
-        } else if (node.value.equals("ARG")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("OP")) {
-            if (node.children.get(0).value.equals("UNOP")) {
-                String t1 = typeOf(node.children.get(0));
-                String t2 = typeOf(node.children.get(2));
-                if (t1.equals(t2) && t1.equals("n")) {
-                    return "n";
-                } else if (t1.equals(t2) && t1.equals("b")) {
-                    return "b";
-                } else {
-                    return "u";
-                }
-            } else if (node.children.get(0).value.equals("BINOP")) {
-                String t0 = typeOf(node.children.get(0));
-                String t1 = typeOf(node.children.get(2));
-                String t2 = typeOf(node.children.get(4));
-                if (t0.equals(t1) && t1.equals(t2) && t0.equals("n")) {
-                    return "n";
-                } else if (t0.equals(t1) && t1.equals(t2) && t0.equals("b")) {
-                    return "b";
-                } else if (t0.equals("c") && t1.equals(t2) && t1.equals("n")) {
-                    return "b";
-                } else {
-                    return "u";
-                }
-            } else {
-                return "u";
-            }
-
-        } else if (node.value.equals("COND")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("SIMPLE")) {
-            String t0 = typeOf(node.children.get(0));
-            String t1 = typeOf(node.children.get(2));
-            String t2 = typeOf(node.children.get(4));
-            if (t0.equals(t1) && t1.equals(t2) && t0.equals("b")) {
-                return "b";
-            } else if (t0.equals("c") && t1.equals(t2) && t1.equals("n")) {
-                return "b";
-            } else {
-                return "u";
-            }
-
-        } else if (node.value.equals("COMPOSIT")) {
-            if (node.children.get(0).value.equals("BINOP")) {
-                String t0 = typeOf(node.children.get(0));
-                String t1 = typeOf(node.children.get(2));
-                String t2 = typeOf(node.children.get(4));
-                if (t0.equals(t1) && t1.equals(t2) && t0.equals("b")) {
-                    return "b";
-                } else {
-                    return "u";
-                }
-            } else if (node.children.get(0).value.equals("UNOP")) {
-                String t0 = typeOf(node.children.get(0));
-                String t1 = typeOf(node.children.get(2));
-                if (t0.equals(t1) && t0.equals("b")) {
-                    return "b";
-                } else {
-                    return "u";
-                }
-            } else {
-                return "u";
-            }
-        } else {
-            throw new Exception("Invalid node type.");
-        }
-    }
-
-    public boolean typeCheck(SyntaxTree.Node node) throws Exception {
-        boolean result = true;
-        switch (node.value) {
-            case "PROG": {
-                result = (typeCheck(node.children.get(1)) && typeCheck(node.children.get(2))
-                        && typeCheck(node.children.get(3)));
-                break;
-            }
-            case "GLOBVARS": {
-                if (node.children.size() == 1) {
-                    result = true;
-                } else {
-                    String type = typeOf(node.children.get(0));
-                    SymbolTable.VariableInfo v = symbolTable.get(node.children.get(1).children.get(0).unid);
-                    if (v == null) {
-                        throw new Exception("Variable " + node.children.get(1).children.get(0).value + " ID: "
-                                + node.children.get(1).children.get(0).unid + " not declared.");
-                    }
-                    v.type = type;
-                    result = typeCheck(node.children.get(3));
-                }
-                break;
-            }
-            case "LOCVARS": {
-                String t1 = typeOf(node.children.get(0));
-                SymbolTable.VariableInfo v = symbolTable.get(node.children.get(1).children.get(0).unid);
-                if (v == null) {
-                    throw new Exception("Variable " + node.children.get(1).children.get(0).value + " ID: "
-                            + node.children.get(1).children.get(0).unid + " not declared.");
-                }
-                v.type = t1;
-
-                String t2 = typeOf(node.children.get(3));
-                SymbolTable.VariableInfo v2 = symbolTable.get(node.children.get(4).children.get(0).unid);
-                if (v2 == null) {
-                    throw new Exception("Variable " + node.children.get(4).children.get(0).value + " ID: "
-                            + node.children.get(4).children.get(0).unid + " not declared.");
-                }
-                v2.type = t2;
-
-                String t3 = typeOf(node.children.get(6));
-                SymbolTable.VariableInfo v3 = symbolTable.get(node.children.get(7).children.get(0).unid);
-                if (v3 == null) {
-                    throw new Exception("Variable " + node.children.get(7).children.get(0).value + " ID: "
-                            + node.children.get(7).children.get(0).unid + " not declared.");
-                }
-                v3.type = t3;
-
-                result = true;
-                break;
-            }
-            case "COMMAND": {
-                if (node.children.get(0).value.equals("skip")) {
-                    result = true;
-                } else if (node.children.get(0).value.equals("halt")) {
-                    result = true;
-                } else if (node.children.get(0).value.equals("print")) {
-                    String t1 = typeOf(node.children.get(1));
-                    if (t1.equals("n") || t1.equals("t")) {
-                        result = true;
-                    } else {
-                        result = false;
-                    }
-                } else if (node.children.get(0).value.equals("return")) {
-                    // tree-crawl to find function type
-                    SyntaxTree.Node temp = node;
-                    while (!temp.value.equals("FUNCTIONS")) {
-                        temp = temp.parent;
-                    }
-                    String t1 = typeOf(node.children.get(1));
-
-                    String t2 = typeOf(temp.children.get(0).children.get(0).children.get(0));
-                    if (t1.equals(t2) && t1.equals("n")) {
-                        result = true;
-                    } else {
-                        result = false;
-                    }
-
-                } else if (node.children.get(0).value.equals("ASSIGN")) {
-                    result = typeCheck(node.children.get(0));
-                } else if (node.children.get(0).value.equals("CALL")) {
-                    String t1 = typeOf(node.children.get(0));
-                    if (t1.equals("v")) {
-                        result = true;
-                    } else {
-                        result = false;
-                    }
-                } else if (node.children.get(0).value.equals("BRANCH")) {
-                    result = typeCheck(node.children.get(0));
-                }
-                break;
-            }
-            case "ALGO": {
-                result = typeCheck(node.children.get(1));
-                break;
-            }
-            case "INSTRUC": {
-                if (node.children.size() == 1) {
-                    result = true;
-                } else {
-                    result = (typeCheck(node.children.get(0)) && typeCheck(node.children.get(2)));
-                }
-                break;
-            }
-            case "BRANCH": {
-                String t1 = typeOf(node.children.get(1));
-                if (t1.equals("b")) {
-                    result = typeCheck(node.children.get(3)) && typeCheck(node.children.get(5));
-                } else {
-                    result = false;
-                }
-                break;
-
-            }
-            case "ASSIGN": {
-                if (node.children.size() == 2) {
-                    String t1 = typeOf(node.children.get(0));
-                    if (t1.equals("n")) {
-                        result = true;
-                    } else {
-                        result = false;
-                    }
-                } else {
-                    String t1 = typeOf(node.children.get(0));
-                    String t2 = typeOf(node.children.get(2));
-                    if (t1.equals(t2)) {
-                        result = true;
-                    } else {
-                        result = false;
-                    }
-                }
-                break;
-
-            }
-            case "FUNCTIONS": {
-                if (node.children.size() == 1) {
-                    result = true;
-                } else {
-                    result = (typeCheck(node.children.get(0)) && typeCheck(node.children.get(1)));
-                }
-                break;
-            }
-            case "DECL": {
-
-                result = (typeCheck(node.children.get(0)) && typeCheck(node.children.get(1)));
-                break;
-
-            }
-            case "HEADER": {
-                String t1 = typeOf(node.children.get(0));
-                SymbolTable.VariableInfo v = symbolTable.get(node.children.get(1).children.get(0).unid);
-                if (v == null) {
-                    throw new Exception("Variable " + node.children.get(1).children.get(0).value + " ID: "
-                            + node.children.get(1).children.get(0).unid + " not declared.");
-                }
-                v.type = t1;
-                String t2 = typeOf(node.children.get(3));
-                String t3 = typeOf(node.children.get(5));
-                String t4 = typeOf(node.children.get(7));
-
-                if (t1.equals("n")) {
-                    // tree-crawl to find return type
-                    SyntaxTree.Node temp = node;
-                    while (!temp.value.equals("DECL")) {
-                        temp = temp.parent;
-                    }
-                    SyntaxTree.Node temp2 = temp.children.get(1).children.get(2).children.get(1);
-                    while (temp2.children.size() != 1) {
-                        if (temp2.children.get(0).children.get(0).value.equals("return")) {
-                            break;
-                        }
-                        temp2 = temp2.children.get(2);
-                    }
-                    if (temp2.children.size() == 1)
-                        result = false;
-                    else {
-
-                        if (t2.equals(t3) && t3.equals(t4) && t2.equals("n")) {
-                            result = true;
-                        } else {
-                            result = false;
-                        }
-                    }
-                } else {
-                    if (t2.equals(t3) && t3.equals(t4) && t2.equals("n")) {
-                        result = true;
-                    } else {
-                        result = false;
-                    }
-                }
-                break;
+    // Analyzes the tree in preorder. The walk keeps its own stack rather than recursing, because INSTRUC,
+    // GLOBVARS and FUNCTIONS chains nest one level per element and a long program would otherwise overflow
+    // the thread stack. LEAVE_PROG is pushed under PROG's children so its scope is left once they are done.
+    private void traverseAndAnalyze(int root) throws Exception {
+        int[] pending = new int[64];
+        int top = 0;
+        pending[top++] = root;
+        while (top > 0) {
+            int node = pending[--top];
+            if (node == LEAVE_PROG) {
+                exitCurrentScope();
+                continue;
             }
-            case "BODY": {
-                result = typeCheck(node.children.get(0)) && typeCheck(node.children.get(1))
-                        && typeCheck(node.children.get(2)) && typeCheck(node.children.get(3))
-                        && typeCheck(node.children.get(4));
-                break;
+            int parent = tree.parent(node);
+            tree.setFunction(node, tree.kind(node) == NodeKind.DECL ? node
+                    : parent == SyntaxArena.NONE ? SyntaxArena.NONE : tree.function(parent));
+            analyzeNode(node);
+            checkTypes(node);
+            int count = tree.childCount(node);
+            if (top + count + 1 > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(top + count + 1, pending.length * 2));
             }
-            case "SUBFUNCS": {
-                result = typeCheck(node.children.get(0));
-                break;
+            if (tree.kind(node) == NodeKind.PROG) {
+                pending[top++] = LEAVE_PROG;
             }
-            case "PROLOG": {
-                result = true;
-                break;
+            // the children go on last one first, so they come off in order
+            top += count;
+            int slot = top;
+            for (int child = tree.firstChild(node); child != SyntaxArena.NONE; child = tree.nextSibling(child)) {
+                pending[--slot] = child;
             }
-            case "EPILOG": {
-                result = true;
-                break;
+            if (tree.kind(node) == NodeKind.END) {
+                exitCurrentScope();
             }
-            default:
-                break;
-        }
-
-        for (SyntaxTree.Node child : node.children) {
-            result = result && typeCheck(child);
         }
-
-        if (node.value.equals("end") || node.value.equals("PROG")) {
-            exitCurrentScope();
-        }
-        // System.out.println(node.value + " " + result + " Afterwards");
-
-        return result;
-
     }
 
-    private void traverseAndAnalyze(SyntaxTree.Node node) throws Exception {
-        switch (node.value) {
-            case "PROG":
+    private void analyzeNode(int node) throws Exception {
+        switch (tree.kind(node)) {
+            case PROG:
                 enterNewScope("main");
                 break;
-            case "FUNCTIONS":
+            case FUNCTIONS:
                 checkFunctionDeclaration(node);
                 break;
-            case "GLOBVARS":
-            case "LOCVARS":
+            case GLOBVARS:
+            case LOCVARS:
                 checkVariableDeclaration(node);
                 break;
-            case "COMMAND":
+            case COMMAND:
                 checkCommand(node);
                 break;
-            case "COND":
-                checkCond(node);
+            case BRANCH:
+                // bound here rather than at COND, so the branch can be type checked straight away
+                checkCond(tree.child(node, 1));
                 break;
-            case "ALGO":
+            case ALGO:
                 enterNewScope("algo" + uniqueAlgoIdentifierCounter++);
                 break;
             default:
                 break;
         }
+    }
 
-        for (SyntaxTree.Node child : node.children) {
-            traverseAndAnalyze(child);
+    // Type checks node once analyzeNode has bound the names it uses. Checks that need a called function's
+    // type wait in deferredTypeChecks until the calls are resolved. After the first failure the remaining
+    // checks are skipped, but analysis carries on so that scope errors are still the ones reported.
+    private void checkTypes(int node) throws Exception {
+        if (!wellTyped) {
+            return;
         }
+        if (typeChecker.needsResolvedCalls(node)) {
+            if (deferredCount == deferredTypeChecks.length) {
+                deferredTypeChecks = Arrays.copyOf(deferredTypeChecks, deferredCount * 2);
+            }
+            deferredTypeChecks[deferredCount++] = node;
+        } else if (!typeChecker.checkNode(node)) {
+            wellTyped = false;
+        }
+    }
 
-        if (node.value.equals("end") || node.value.equals("PROG")) {
-            exitCurrentScope();
+    private void runDeferredTypeChecks() throws Exception {
+        for (int i = 0; i < deferredCount && wellTyped; i++) {
+            wellTyped = typeChecker.checkNode(deferredTypeChecks[i]);
         }
+        deferredCount = 0;
     }
 
     private void enterNewScope(String scopeName) {
-        SymbolTable newScope = new SymbolTable(scopeName, currentScope);
+        SymbolTable newScope = new SymbolTable(scopeName, currentScope, nextScopeId++);
         if (currentScope != null) {
             currentScope.addChildScope(newScope);
         }
+        scopesByName.computeIfAbsent(scopeName, name -> new ScopeIndex()).add(newScope);
+        scopes.add(newScope);
         currentScope = newScope;
     }
 
     private void exitCurrentScope() {
         if (currentScope != null && currentScope.getParentScope() != null) {
+            currentScope.close(nextScopeId - 1);
             currentScope = currentScope.getParentScope();
         }
     }
 
+    // Records that scope declares name, once it has been put in scope, and binds the declaring leaf to it.
+    // The declaration goes into the large symbol table too, which is kept for reporting.
+    private void indexDeclaration(SymbolTable scope, String name, int leaf) {
+        declaringScopes.computeIfAbsent(name, key -> new ScopeIndex()).add(scope);
+        SymbolTable.VariableInfo info = scope.get(name);
+        tree.setBinding(leaf, info);
+        symbolTable.put(info.unid, info);
+    }
+
+    // Binds a V_ or F_ leaf where a name is used to its declaration
+    private void bind(int leaf, SymbolTable.VariableInfo info) {
+        tree.setUnid(leaf, info.unid);
+        tree.setBinding(leaf, info);
+    }
+
+    // The innermost declaration of name visible from scope, or null
+    private SymbolTable.VariableInfo lookup(String name, SymbolTable scope) {
+        ScopeIndex index = declaringScopes.get(name);
+        SymbolTable declaring = index == null ? null : index.innermostEnclosing(scope);
+        return declaring == null ? null : declaring.get(name);
+    }
+
+    // Whether scope or a scope enclosing it is called scopeName
+    private boolean isInScopeNamed(SymbolTable scope, String scopeName) {
+        ScopeIndex index = scopesByName.get(scopeName);
+        return index != null && index.innermostEnclosing(scope) != null;
+    }
+
     private SymbolTable getCurrentScope() {
         return currentScope;
     }
@@ -582,32 +271,32 @@ public class ScopeAnalysis {
         return "functionName" + uniqueFunctionIdentifierCounter++;
     }
 
-    private void checkVariableDeclaration(SyntaxTree.Node node) throws Exception {
+    private void checkVariableDeclaration(int node) throws Exception {
         SymbolTable currentScope = getCurrentScope();
 
-        if (node.value.equals("GLOBVARS")) {
+        if (tree.kind(node) == NodeKind.GLOBVARS) {
             processGlobalVars(node, currentScope);
         }
 
-        else if (node.value.equals("LOCVARS")) {
+        else if (tree.kind(node) == NodeKind.LOCVARS) {
             processLocalVars(node, currentScope);
         }
     }
 
-    private void processGlobalVars(SyntaxTree.Node node, SymbolTable currentScope) throws Exception {
-        for (int i = 0; i < node.children.size(); i++) {
-            SyntaxTree.Node child = node.children.get(i);
+    private void processGlobalVars(int node, SymbolTable currentScope) throws Exception {
+        for (int i = 0; i < tree.childCount(node); i++) {
+            int child = tree.child(node, i);
 
-            if (child.value.equals("VTYP")) {
-                SyntaxTree.Node vnameNode = node.children.get(++i);
+            if (tree.kind(child) == NodeKind.VTYP) {
+                int vnameNode = tree.child(node, ++i);
 
-                if (!vnameNode.value.equals("VNAME")) {
+                if (tree.kind(vnameNode) != NodeKind.VNAME) {
                     throw new Exception("Expected a variable name after type declaration.");
                 }
 
-                SyntaxTree.Node varNode = vnameNode.children.get(0);
-                String varName = varNode.value;
-                int varUnid = varNode.unid;
+                int varNode = tree.child(vnameNode, 0);
+                String varName = tree.value(varNode);
+                int varUnid = tree.unid(varNode);
 
                 if (currentScope.contains(varName)) {
                     throw new Exception("Variable '" + varName + "' already declared in this scope.");
@@ -618,30 +307,31 @@ public class ScopeAnalysis {
 
                 String uniqueName = generateUniqueVarName();
                 currentScope.put(varName, varUnid, uniqueName);
-            } else if (child.value.equals(",")) {
+                indexDeclaration(currentScope, varName, varNode);
+            } else if (tree.kind(child) == NodeKind.COMMA) {
                 continue;
             }
         }
     }
 
-    private void processLocalVars(SyntaxTree.Node node, SymbolTable currentScope) throws Exception {
-        if (node.children.size() != 9) {
+    private void processLocalVars(int node, SymbolTable currentScope) throws Exception {
+        if (tree.childCount(node) != 9) {
             throw new Exception("LOCVARS must declare exactly 3 variables.");
         }
 
-        for (int i = 0; i < node.children.size(); i++) {
-            SyntaxTree.Node child = node.children.get(i);
+        for (int i = 0; i < tree.childCount(node); i++) {
+            int child = tree.child(node, i);
 
-            if (child.value.equals("VTYP")) {
-                SyntaxTree.Node vnameNode = node.children.get(++i);
+            if (tree.kind(child) == NodeKind.VTYP) {
+                int vnameNode = tree.child(node, ++i);
 
-                if (!vnameNode.value.equals("VNAME")) {
+                if (tree.kind(vnameNode) != NodeKind.VNAME) {
                     throw new Exception("Expected a variable name after type declaration.");
                 }
 
-                SyntaxTree.Node varNode = vnameNode.children.get(0);
-                String varName = varNode.value;
-                int varUnid = varNode.unid;
+                int varNode = tree.child(vnameNode, 0);
+                String varName = tree.value(varNode);
+                int varUnid = tree.unid(varNode);
 
                 if (currentScope.contains(varName)) {
                     throw new Exception("Variable '" + varName + "' already declared in this scope.");
@@ -652,24 +342,25 @@ public class ScopeAnalysis {
 
                 String uniqueName = generateUniqueVarName();
                 currentScope.put(varName, varUnid, uniqueName);
-            } else if (child.value.equals(",")) {
+                indexDeclaration(currentScope, varName, varNode);
+            } else if (tree.kind(child) == NodeKind.COMMA) {
                 continue;
             }
         }
     }
 
-    private void checkVariableAssignment(SyntaxTree.Node node) throws Exception {
-        if (node.children.isEmpty()) {
+    private void checkVariableAssignment(int node) throws Exception {
+        if (tree.isLeaf(node)) {
             throw new Exception("ASSIGN node has no children.");
         }
 
-        SyntaxTree.Node vnameNode = node.children.get(0);
-        if (!vnameNode.value.equals("VNAME")) {
+        int vnameNode = tree.child(node, 0);
+        if (tree.kind(vnameNode) != NodeKind.VNAME) {
             throw new Exception("Expected VNAME in ASSIGN node.");
         }
 
-        SyntaxTree.Node variableNameNode = vnameNode.children.get(0);
-        String varName = variableNameNode.value;
+        int variableNameNode = tree.child(vnameNode, 0);
+        String varName = tree.value(variableNameNode);
 
         SymbolTable.VariableInfo variableInfo = lookupVariable(varName);
 
@@ -677,72 +368,72 @@ public class ScopeAnalysis {
             throw new Exception("Variable '" + varName + "' not declared.");
         }
 
-        variableNameNode.unid = variableInfo.unid;
+        bind(variableNameNode, variableInfo);
         // System.out.println("Variable '" + varName + "' is declared with UNID " + variableInfo.unid);
 
-        if (node.children.size() == 2 && node.children.get(1).value.equals("< input")) {
+        if (tree.childCount(node) == 2 && tree.kind(tree.child(node, 1)) == NodeKind.INPUT) {
             return;
-        } else if (node.children.size() == 3 && node.children.get(1).value.equals("=")) {
-            SyntaxTree.Node termNode = node.children.get(2);
+        } else if (tree.childCount(node) == 3 && tree.kind(tree.child(node, 1)) == NodeKind.EQUALS) {
+            int termNode = tree.child(node, 2);
             checkTerm(termNode);
         } else {
             throw new Exception("Invalid ASSIGN structure.");
         }
     }
 
-    private void checkTerm(SyntaxTree.Node termNode) throws Exception {
+    private void checkTerm(int termNode) throws Exception {
         // The node passed here is TERM, now check its child to determine the type
-        if (termNode.children.isEmpty()) {
+        if (tree.isLeaf(termNode)) {
             throw new Exception("TERM node has no children.");
         }
 
-        SyntaxTree.Node childNode = termNode.children.get(0); // This can be ATOMIC, CALL, or OP
+        int childNode = tree.child(termNode, 0); // This can be ATOMIC, CALL, or OP
 
-        if (childNode.value.equals("ATOMIC")) {
+        if (tree.kind(childNode) == NodeKind.ATOMIC) {
             checkAtomic(childNode); // Handle ATOMIC
-        } else if (childNode.value.equals("CALL")) {
+        } else if (tree.kind(childNode) == NodeKind.CALL) {
             // Kaybee added this
             checkFunctionCall(childNode);
-        } else if (childNode.value.equals("OP")) {
+        } else if (tree.kind(childNode) == NodeKind.OP) {
             checkOperation(childNode); // Handle operations
         } else {
             throw new Exception("Invalid TERM type.");
         }
     }
 
-    private void checkAtomic(SyntaxTree.Node atomicNode) throws Exception {
-        if (atomicNode.children.isEmpty()) {
+    private void checkAtomic(int atomicNode) throws Exception {
+        if (tree.isLeaf(atomicNode)) {
             throw new Exception("ATOMIC node has no children.");
         }
 
-        SyntaxTree.Node atomicChild = atomicNode.children.get(0); // Could be VNAME or CONST
+        int atomicChild = tree.child(atomicNode, 0); // Could be VNAME or CONST
 
-        if (atomicChild.value.equals("VNAME")) {
-            SyntaxTree.Node variableNode = atomicChild.children.get(0); // Actual variable node
-            String varName = variableNode.value; // Use the variable's name
+        if (tree.kind(atomicChild) == NodeKind.VNAME) {
+            int variableNode = tree.child(atomicChild, 0); // Actual variable node
+            String varName = tree.value(variableNode); // Use the variable's name
 
             SymbolTable.VariableInfo variableInfo = lookupVariable(varName);
 
             if (variableInfo == null) {
                 throw new Exception("Variable '" + varName + "' not declared.");
             }
-            variableNode.unid = variableInfo.unid;
-        } else if (atomicChild.value.equals("CONST")) {
+            bind(variableNode, variableInfo);
+        } else if (tree.kind(atomicChild) == NodeKind.CONST) {
             // Constants don't need lookup but can be handled for type checking
         } else {
             throw new Exception("Invalid ATOMIC value.");
         }
     }
 
-    private void checkOperation(SyntaxTree.Node opNode) throws Exception {
-        SyntaxTree.Node opTypeNode = opNode.children.get(0);
+    private void checkOperation(int opNode) throws Exception {
+        int opTypeNode = tree.child(opNode, 0);
 
-        if (opTypeNode.value.equals("UNOP")) {
-            SyntaxTree.Node argNode = opNode.children.get(2);
+        if (tree.kind(opTypeNode) == NodeKind.UNOP) {
+            int argNode = tree.child(opNode, 2);
             checkArg(argNode);
-        } else if (opTypeNode.value.equals("BINOP")) {
-            SyntaxTree.Node firstArgNode = opNode.children.get(2);
-            SyntaxTree.Node secondArgNode = opNode.children.get(4);
+        } else if (tree.kind(opTypeNode) == NodeKind.BINOP) {
+            int firstArgNode = tree.child(opNode, 2);
+            int secondArgNode = tree.child(opNode, 4);
             checkArg(firstArgNode);
             checkArg(secondArgNode);
         } else {
@@ -750,34 +441,34 @@ public class ScopeAnalysis {
         }
     }
 
-    private void checkArg(SyntaxTree.Node argNode) throws Exception {
-        if (argNode.children.isEmpty()) {
+    private void checkArg(int argNode) throws Exception {
+        if (tree.isLeaf(argNode)) {
             throw new Exception("ARG node has no children.");
         }
 
         // Check if the argument is an ATOMIC or an OP
-        SyntaxTree.Node childNode = argNode.children.get(0); // Get the first child of ARG
+        int childNode = tree.child(argNode, 0); // Get the first child of ARG
 
-        if (childNode.value.equals("ATOMIC")) {
+        if (tree.kind(childNode) == NodeKind.ATOMIC) {
             // Now check the child of ATOMIC
-            SyntaxTree.Node atomicChild = childNode.children.get(0);
-            if (atomicChild.value.equals("VNAME")) {
+            int atomicChild = tree.child(childNode, 0);
+            if (tree.kind(atomicChild) == NodeKind.VNAME) {
                 // Handle variable name case
-                String varName = atomicChild.children.get(0).value; // Get the variable name
+                String varName = tree.value(tree.child(atomicChild, 0)); // Get the variable name
 
                 SymbolTable.VariableInfo variableInfo = lookupVariable(varName);
                 if (variableInfo == null) {
                     throw new Exception("Variable '" + varName + "' not declared.");
                 }
-                atomicChild.children.get(0).unid = variableInfo.unid;
-            } else if (atomicChild.value.equals("CONST")) {
+                bind(tree.child(atomicChild, 0), variableInfo);
+            } else if (tree.kind(atomicChild) == NodeKind.CONST) {
                 // CONST node represents a constant value, no further validation needed here
                 // You might want to add any necessary checks for the constant value here if
                 // needed
             } else {
                 throw new Exception("Invalid ATOMIC value in ARG.");
             }
-        } else if (childNode.value.equals("OP")) {
+        } else if (tree.kind(childNode) == NodeKind.OP) {
             // If the child is an OP, delegate to checkOperation
             checkOperation(childNode);
         } else {
@@ -785,34 +476,34 @@ public class ScopeAnalysis {
         }
     }
 
-    private void checkFunctionDeclaration(SyntaxTree.Node node) throws Exception {
-        if (node.children.isEmpty()) {
+    private void checkFunctionDeclaration(int node) throws Exception {
+        if (tree.isLeaf(node)) {
             throw new Exception("FUNCTIONS node has no children.");
         }
 
-        if (node.children.get(0).value.equals("e")) {
+        if (tree.kind(tree.child(node, 0)) == NodeKind.EPSILON) {
             return;
         }
 
-        SyntaxTree.Node declNode = node.children.get(0);
-        SyntaxTree.Node headerNode = null;
-        SyntaxTree.Node bodyNode = null;
+        int declNode = tree.child(node, 0);
+        int headerNode = SyntaxArena.NONE;
+        int bodyNode = SyntaxArena.NONE;
 
-        for (SyntaxTree.Node child : declNode.children) {
-            if (child.value.equals("HEADER")) {
+        for (int child = tree.firstChild(declNode); child != SyntaxArena.NONE; child = tree.nextSibling(child)) {
+            if (tree.kind(child) == NodeKind.HEADER) {
                 headerNode = child;
-            } else if (child.value.equals("BODY")) {
+            } else if (tree.kind(child) == NodeKind.BODY) {
                 bodyNode = child;
             }
         }
 
-        if (headerNode == null || bodyNode == null) {
+        if (headerNode == SyntaxArena.NONE || bodyNode == SyntaxArena.NONE) {
             throw new Exception("Malformed function declaration. HEADER or BODY missing.");
         }
 
-        SyntaxTree.Node fnameNode = headerNode.children.get(1);
+        int fnameNode = tree.child(headerNode, 1);
 
-        String functionName = fnameNode.children.get(0).value;
+        String functionName = tree.value(tree.child(fnameNode, 0));
 
         if (reservedKeywords.contains(functionName)) {
             throw new Exception("Function name '" + functionName + "' cannot be a reserved keyword.");
@@ -833,22 +524,25 @@ public class ScopeAnalysis {
         String t;
         // Kaybee added function type to symbol table
         try {
-            t = typeOf(headerNode.children.get(0));
-            currentScope.put(functionName, fnameNode.children.get(0).unid, uniqueFuncName, t);
+            t = typeChecker.typeOf(tree.child(headerNode, 0));
+            currentScope.put(functionName, tree.unid(tree.child(fnameNode, 0)), uniqueFuncName, t);
         } catch (Exception e) {
-            currentScope.put(functionName, fnameNode.children.get(0).unid, uniqueFuncName);
+            currentScope.put(functionName, tree.unid(tree.child(fnameNode, 0)), uniqueFuncName);
             ;
         }
+        indexDeclaration(currentScope, functionName, tree.child(fnameNode, 0));
+        functionsDeclaredIn.computeIfAbsent(currentScope.getId(), id -> new HashMap<>())
+                .put(functionName, currentScope.get(functionName));
 
         enterNewScope(functionName);
 
         currentScope = getCurrentScope();
 
-        for (int i = 2; i < headerNode.children.size(); i++) {
-            SyntaxTree.Node paramNode = headerNode.children.get(i);
-            if (paramNode.value.equals("VNAME")) {
-                SyntaxTree.Node paramNameNode = paramNode.children.get(0);
-                String paramName = paramNameNode.value;
+        for (int i = 2; i < tree.childCount(headerNode); i++) {
+            int paramNode = tree.child(headerNode, i);
+            if (tree.kind(paramNode) == NodeKind.VNAME) {
+                int paramNameNode = tree.child(paramNode, 0);
+                String paramName = tree.value(paramNameNode);
 
                 if (reservedKeywords.contains(paramName)) {
                     throw new Exception("Parameter name '" + paramName + "' cannot be a reserved keyword.");
@@ -857,254 +551,192 @@ public class ScopeAnalysis {
                     throw new Exception("Parameter '" + paramName + "' already declared in function scope.");
                 }
                 // Kaybee added default type for parameters
-                currentScope.put(paramName, paramNameNode.unid, generateUniqueVarName(), "n");
+                currentScope.put(paramName, tree.unid(paramNameNode), generateUniqueVarName(), "n");
+                indexDeclaration(currentScope, paramName, paramNameNode);
             }
         }
     }
 
+    // Resolves every call once all functions are declared, so a call can refer to a function declared after
+    // it. Every failing call is reported, in one exception.
     private void resolveFunctionCalls() throws Exception {
+        List<Map<String, SymbolTable.VariableInfo>> visibleFunctions = indexVisibleFunctions();
+        List<String> errors = new ArrayList<>();
         for (UnresolvedFunctionCall call : unresolvedCalls) {
 
             if (isInMainScope(call.callScope) && call.functionName.equals("main")) {
-                throw new Exception("Recursive calls to 'main' are not allowed.");
+                errors.add("Recursive calls to 'main' are not allowed.");
+                continue;
             }
 
-            String uniqueName = lookupFunctionInScopeOrParentScopes(call.functionName, call.callScope);
-            SymbolTable.VariableInfo result = lookupFunction(call.functionName, call.callScope);
-            if(result == null){
-                throw new Exception("Function call to '" + call.functionName + "' cannot be resolved.");
+            SymbolTable.VariableInfo result = visibleFunctions.get(call.callScope.getId()).get(call.functionName);
+            if (result == null) {
+                errors.add("Function call to '" + call.functionName + "' cannot be resolved.");
+                continue;
             }
-            call.callNode.children.get(0).children.get(0).unid = result.unid;
-            if (uniqueName == null) {
-                throw new Exception("Function call to '" + call.functionName + "' cannot be resolved.");
+            bind(tree.child(tree.child(call.callNode, 0), 0), result);
+            out.println("Function call to '" + call.functionName
+                    + "' successfully resolved with unique name " + result.uniqueName);
+        }
+        if (!errors.isEmpty()) {
+            throw new Exception(String.join("\n", errors));
+        }
+    }
+
+    // For each scope id, the functions a call in that scope can refer to: those declared in the scope or any
+    // scope enclosing it, the innermost declaration winning. A scope declaring no functions shares its
+    // parent's map; parents have lower ids, so their maps are built first.
+    private List<Map<String, SymbolTable.VariableInfo>> indexVisibleFunctions() {
+        List<Map<String, SymbolTable.VariableInfo>> visible = new ArrayList<>(scopes.size());
+        for (SymbolTable scope : scopes) {
+            Map<String, SymbolTable.VariableInfo> inherited = scope.getParentScope() == null
+                    ? Collections.emptyMap()
+                    : visible.get(scope.getParentScope().getId());
+            Map<String, SymbolTable.VariableInfo> declared = functionsDeclaredIn.get(scope.getId());
+            if (declared == null) {
+                visible.add(inherited);
             } else {
-                System.out.println("Function call to '" + call.functionName
-                        + "' successfully resolved with unique name " + uniqueName);
+                Map<String, SymbolTable.VariableInfo> functions = new HashMap<>(inherited);
+                functions.putAll(declared);
+                visible.add(functions);
             }
         }
+        return visible;
     }
 
-    private void checkFunctionCall(SyntaxTree.Node node) throws Exception {
-        if (node.children.isEmpty()) {
+    private void checkFunctionCall(int node) throws Exception {
+        if (tree.isLeaf(node)) {
             throw new Exception("CALL node has no children.");
         }
 
         // Retrieve function name
-        SyntaxTree.Node functionNameNode = node.children.get(0);
-        String functionName = functionNameNode.children.get(0).value;
+        int functionNameNode = tree.child(node, 0);
+        String functionName = tree.value(tree.child(functionNameNode, 0));
 
-        for (int i = 2; i < node.children.size(); i += 2) {
-            SyntaxTree.Node atomicNode = node.children.get(i);
+        for (int i = 2; i < tree.childCount(node); i += 2) {
+            int atomicNode = tree.child(node, i);
             validateAtomicNode(atomicNode);
         }
 
         unresolvedCalls.add(new UnresolvedFunctionCall(functionName, node, currentScope));
     }
 
-    private void validateAtomicNode(SyntaxTree.Node atomicNode) throws Exception {
-        if (!atomicNode.value.equals("ATOMIC")) {
+    private void validateAtomicNode(int atomicNode) throws Exception {
+        if (tree.kind(atomicNode) != NodeKind.ATOMIC) {
             throw new Exception("Expected ATOMIC node in function call.");
         }
 
-        SyntaxTree.Node childNode = atomicNode.children.get(0);
+        int childNode = tree.child(atomicNode, 0);
 
-        if (childNode.value.equals("VNAME")) {
-            SyntaxTree.Node variableNode = childNode.children.get(0);
-            String varName = variableNode.value;
+        if (tree.kind(childNode) == NodeKind.VNAME) {
+            int variableNode = tree.child(childNode, 0);
+            String varName = tree.value(variableNode);
 
             SymbolTable.VariableInfo variableInfo = lookupVariable(varName); // Look up variable in scope
             if (variableInfo == null) {
                 throw new Exception("Variable '" + varName + "' used in function call has not been declared.");
             }
-            variableNode.unid = variableInfo.unid;
-            System.out.println("Argument '" + varName + "' in function call is declared at UNID " + variableInfo.unid);
-        } else if (childNode.value.equals("CONST")) {
-            System.out.println("Constant argument in function call is valid.");
+            bind(variableNode, variableInfo);
+            out.println("Argument '" + varName + "' in function call is declared at UNID " + variableInfo.unid);
+        } else if (tree.kind(childNode) == NodeKind.CONST) {
+            out.println("Constant argument in function call is valid.");
         } else {
             throw new Exception("Invalid argument in function call: expected VNAME or CONST.");
         }
     }
 
-    private void checkCommand(SyntaxTree.Node node) throws Exception {
-        if (node.children.isEmpty()) {
+    private void checkCommand(int node) throws Exception {
+        if (tree.isLeaf(node)) {
             throw new Exception("COMMAND node has no children.");
         }
 
-        SyntaxTree.Node commandNode = node.children.get(0);
+        int commandNode = tree.child(node, 0);
 
-        switch (commandNode.value) {
-            case "print":
-                checkPrint(node.children.get(1)); // Check print ATOMIC
+        switch (tree.kind(commandNode)) {
+            case PRINT:
+                checkPrint(tree.child(node, 1)); // Check print ATOMIC
                 break;
-            case "return":
-                checkReturn(node.children.get(1)); // Check return ATOMIC
+            case RETURN:
+                checkReturn(node); // Check return ATOMIC
                 break;
-            case "ASSIGN":
-                checkVariableAssignment(node.children.get(0)); // Handle assignment
+            case ASSIGN:
+                checkVariableAssignment(tree.child(node, 0)); // Handle assignment
                 break;
-            case "CALL":
-                checkFunctionCall(node.children.get(0)); // Handle function calls
+            case CALL:
+                checkFunctionCall(tree.child(node, 0)); // Handle function calls
                 break;
         }
     }
 
-    private void checkCond(SyntaxTree.Node node) throws Exception {
-        if (node.children.isEmpty()) {
+    private void checkCond(int node) throws Exception {
+        if (tree.isLeaf(node)) {
             throw new Exception("COND node has no children.");
         }
 
-        SyntaxTree.Node condChild = node.children.get(0);
+        int condChild = tree.child(node, 0);
 
-        if (condChild.value.equals("SIMPLE")) {
+        if (tree.kind(condChild) == NodeKind.SIMPLE) {
             checkSimple(condChild);
-        } else if (condChild.value.equals("COMPOSIT")) {
+        } else if (tree.kind(condChild) == NodeKind.COMPOSIT) {
             checkComposit(condChild);
         } else {
             throw new Exception("Invalid COND child: expected SIMPLE or COMPOSIT.");
         }
     }
 
-    private void checkSimple(SyntaxTree.Node simpleNode) throws Exception {
-        if (simpleNode.children.size() != 6) {
+    private void checkSimple(int simpleNode) throws Exception {
+        if (tree.childCount(simpleNode) != 6) {
             throw new Exception("Invalid SIMPLE structure: expected BINOP( ATOMIC , ATOMIC ).");
         }
 
-        SyntaxTree.Node binopNode = simpleNode.children.get(0);
-        if (!binopNode.value.equals("BINOP")) {
+        int binopNode = tree.child(simpleNode, 0);
+        if (tree.kind(binopNode) != NodeKind.BINOP) {
             throw new Exception("Expected BINOP in SIMPLE.");
         }
 
-        checkAtomic(simpleNode.children.get(2));
-        checkAtomic(simpleNode.children.get(4));
+        checkAtomic(tree.child(simpleNode, 2));
+        checkAtomic(tree.child(simpleNode, 4));
     }
 
-    private void checkComposit(SyntaxTree.Node compositNode) throws Exception {
-        if (compositNode.children.size() == 6) {
-            SyntaxTree.Node binopNode = compositNode.children.get(0);
-            if (!binopNode.value.equals("BINOP")) {
+    private void checkComposit(int compositNode) throws Exception {
+        if (tree.childCount(compositNode) == 6) {
+            int binopNode = tree.child(compositNode, 0);
+            if (tree.kind(binopNode) != NodeKind.BINOP) {
                 throw new Exception("Expected BINOP in COMPOSIT.");
             }
 
-            checkSimple(compositNode.children.get(2));
-            checkSimple(compositNode.children.get(4));
-        } else if (compositNode.children.size() == 4) {
-            SyntaxTree.Node unopNode = compositNode.children.get(0);
-            if (!unopNode.value.equals("UNOP")) {
+            checkSimple(tree.child(compositNode, 2));
+            checkSimple(tree.child(compositNode, 4));
+        } else if (tree.childCount(compositNode) == 4) {
+            int unopNode = tree.child(compositNode, 0);
+            if (tree.kind(unopNode) != NodeKind.UNOP) {
                 throw new Exception("Expected UNOP in COMPOSIT.");
             }
 
-            checkSimple(compositNode.children.get(2));
+            checkSimple(tree.child(compositNode, 2));
         } else {
             throw new Exception("Invalid COMPOSIT structure.");
         }
     }
 
-    private void checkPrint(SyntaxTree.Node atomicNode) throws Exception {
+    private void checkPrint(int atomicNode) throws Exception {
         checkAtomic(atomicNode);
     }
 
-    private void checkReturn(SyntaxTree.Node atomicNode) throws Exception {
-        SymbolTable current = currentScope;
-        boolean inFunctionScope = false;
-
-        while (current != null) {
-            if (current.getScopeName().startsWith("F_")) {
-                inFunctionScope = true;
-                break;
-            }
-
-            if (current.getScopeName().equals("main")) {
-                throw new Exception("'return' statement cannot appear in the 'main' function.");
-            }
-
-            current = current.getParentScope();
+    private void checkReturn(int commandNode) throws Exception {
+        // every scope lies inside main, so a return outside a function is one in main
+        if (tree.function(commandNode) == SyntaxArena.NONE) {
+            throw new Exception("'return' statement cannot appear in the 'main' function.");
         }
-
-        if (!inFunctionScope) {
-            throw new Exception("'return' statement must appear within a function scope.");
-        }
-        checkAtomic(atomicNode);
+        checkAtomic(tree.child(commandNode, 1));
     }
 
     private boolean isInMainScope(SymbolTable scope) {
-        while (scope != null) {
-            if (scope.getScopeName().equals("main")) {
-                return true;
-            }
-            scope = scope.getParentScope();
-        }
-        return false;
-    }
-
-    private boolean isRecursiveScope(SymbolTable scope, String fName) {
-        while (scope != null) {
-            if (scope.getScopeName().equals(fName)) {
-                return true;
-            }
-            scope = scope.getParentScope();
-        }
-        return false;
-    }
-
-    private String lookupFunctionInScopeOrParentScopes(String funcName, SymbolTable startScope) {// Ask if function
-                                                                                                 // calls can call from
-                                                                                                 // parent
-        SymbolTable scope = startScope;
-
-        // For recursive calls
-        if (scope != null && isRecursiveScope(scope, funcName)) {
-            System.out.println("Recursive call to " + funcName);
-            while (scope != null) {
-                if (scope.contains(funcName)) {
-                    return scope.get(funcName).uniqueName;
-                }
-                scope = scope.getParentScope();
-            }
-        }
-
-        while (scope != null) {
-            if (scope.contains(funcName)) {
-                return scope.get(funcName).uniqueName;
-            }
-            scope = scope.getParentScope();
-        }
-        return null;
-    }
-
-    private SymbolTable.VariableInfo lookupFunction(String funcName, SymbolTable startScope) {// Ask if function
-        // calls can call from
-        // parent
-        SymbolTable scope = startScope;
-
-        // For recursive calls
-        if (scope != null && isRecursiveScope(scope, funcName)) {
-            System.out.println("Recursive call to " + funcName);
-            while (scope != null) {
-                if (scope.contains(funcName)) {
-                    return scope.get(funcName);
-                }
-                scope = scope.getParentScope();
-            }
-        }
-
-        while (scope != null) {
-            if (scope.contains(funcName)) {
-                return scope.get(funcName);
-            }
-            scope = scope.getParentScope();
-        }
-        return null;
+        return isInScopeNamed(scope, "main");
     }
 
     private SymbolTable.VariableInfo lookupVariable(String varName) {
-        SymbolTable scope = currentScope;
-        while (scope != null) {
-            if (scope.contains(varName)) {
-                return scope.get(varName);
-            }
-            scope = scope.getParentScope();
-        }
-        return null;
+        return currentScope == null ? null : lookup(varName, currentScope);
     }
 
     private SymbolTable getHeadScope() {
@@ -1120,9 +752,9 @@ public class ScopeAnalysis {
             return;
 
         String indent = "  ".repeat(depth);
-        System.out.println(indent + "Scope: " + scope.getScopeName());
+        out.println(indent + "Scope: " + scope.getScopeName());
 
-        scope.printSymbolTable(indent);
+        scope.printSymbolTable(out, indent);
 
         for (SymbolTable child : scope.getChildScopes()) {
             printScopeTree(child, depth + 1);
@@ -1136,6 +768,8 @@ public class ScopeAnalysis {
 
     public void consolidateSymbolTables() {
         SymbolTable rootScope = getHeadScope();
+        // refilled in scope order, the order the table has always been listed in
+        symbolTable.clear();
         collectSymbolsFromScope(rootScope, symbolTable);
     }
 
@@ -1150,16 +784,29 @@ public class ScopeAnalysis {
     }
 
     public void printSymbolTable() {
+        out.print(symbolTableText());
+    }
+
+    // The large symbol table as written to symbol_table.txt
+    public String symbolTableText() {
+        StringBuilder res = new StringBuilder();
         if (symbolTable.isEmpty()) {
-            System.out.println("  No variables in this scope.");
+            res.append("  No variables in this scope.\n");
         } else {
-            System.out.println("----LARGE SYMBOL TABLE----");
+            res.append("----LARGE SYMBOL TABLE----\n");
             for (Map.Entry<Integer, SymbolTable.VariableInfo> entry : symbolTable.entrySet()) {
-                System.out.println("  Variable: " + entry.getKey() + " -> Unique Name: "
-                        + entry.getValue().uniqueName + ", UNID: " + entry.getValue().unid + ", Original Name: "
-                        + entry.getValue().originalName+ ", TYPE: " + entry.getValue().type);
+                res.append("  Variable: ").append(entry.getKey()).append(" -> Unique Name: ")
+                        .append(entry.getValue().uniqueName).append(", UNID: ").append(entry.getValue().unid)
+                        .append(", Original Name: ").append(entry.getValue().originalName)
+                        .append(", TYPE: ").append(entry.getValue().type).append('\n');
             }
         }
+        return res.toString();
+    }
+
+    // Whether the tree passed the type checks made during analyze
+    public boolean isWellTyped() {
+        return wellTyped;
     }
 
     public Map<Integer, SymbolTable.VariableInfo> getLargeSymbolTable() {
@@ -1,3 +1,4 @@
+import java.io.PrintStream;
 import java.util.*;
 
 public class SymbolTable {
@@ -5,6 +6,11 @@ public class SymbolTable {
     private String scopeName; 
     private SymbolTable parentScope;
     private List<SymbolTable> childScopes;
+    // Scopes are numbered in the order they are entered, so the scopes below this one are exactly those
+    // numbered id to lastDescendantId; that makes an ancestor test two comparisons
+    private int id;
+    private int depth;
+    private int lastDescendantId = Integer.MAX_VALUE; // MAX_VALUE until the scope is closed
 
     // Class to store variable information (name, UNID, etc.)
     public static class VariableInfo {
@@ -27,11 +33,19 @@ public class SymbolTable {
         }
     }
 
+    // Scopes made with this constructor all have id 0, so isAncestorOf is meaningless for them
     public SymbolTable(String scopeName, SymbolTable parentScope) {
+        this(scopeName, parentScope, 0);
+    }
+
+    // id is the number of scopes entered before this one
+    public SymbolTable(String scopeName, SymbolTable parentScope, int id) {
         this.symbolTable = new HashMap<>();
         this.scopeName = scopeName;
         this.parentScope = parentScope;
         this.childScopes = new ArrayList<>();
+        this.id = id;
+        this.depth = parentScope == null ? 0 : parentScope.depth + 1;
     }
 
     public void put(String varName, int unid, String uniqueName,String type) {
@@ -66,6 +80,26 @@ public class SymbolTable {
         return parentScope;
     }
 
+    public int getId() {
+        return id;
+    }
+
+    // The number of scopes enclosing this one
+    public int getDepth() {
+        return depth;
+    }
+
+    // Called when the scope is left, with the id of the last scope entered so far
+    public void close(int lastDescendantId) {
+        this.lastDescendantId = lastDescendantId;
+    }
+
+    // Whether scope is this scope or lies inside it; a scope that is still open encloses every scope
+    // entered after it
+    public boolean isAncestorOf(SymbolTable scope) {
+        return id <= scope.id && scope.id <= lastDescendantId;
+    }
+
     public void addChildScope(SymbolTable childScope) {
         childScopes.add(childScope); // Add the child scope to the list
     }
@@ -75,12 +109,12 @@ public class SymbolTable {
     }
 
     // Modified to print the variables with indentation
-    public void printSymbolTable(String indent) {
+    public void printSymbolTable(PrintStream out, String indent) {
         if (symbolTable.isEmpty()) {
-            System.out.println(indent + "  No variables in this scope.");
+            out.println(indent + "  No variables in this scope.");
         } else {
             for (Map.Entry<String, VariableInfo> entry : symbolTable.entrySet()) {
-                System.out.println(indent + "  Variable: " + entry.getKey() + " -> Unique Name: " 
+                out.println(indent + "  Variable: " + entry.getKey() + " -> Unique Name: " 
                                     + entry.getValue().uniqueName + ", UNID: " + entry.getValue().unid + ", Original Name: " + entry.getValue().originalName);
             }
         }
@@ -0,0 +1,311 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Flat syntax tree: a node is an int index into parallel arrays holding its kind, value, parent, first child,
+// next sibling, UNID and token, and node values are interned once per tree. Walking it allocates nothing:
+//
+//     for (int child = tree.firstChild(node); child != SyntaxArena.NONE; child = tree.nextSibling(child))
+//
+// The parser builds it bottom-up, every pass after it reads it through these accessors, and ScopeAnalysis and
+// TypeChecker record what they work out about a node (its type, enclosing function and bound declaration) in
+// further arrays that only exist once something has been recorded.
+public class SyntaxArena {
+    public static final int NONE = -1;
+
+    private static final NodeKind[] KINDS = NodeKind.values();
+    // Type codes are single characters and type[] holds the char: 0 while the type is not known, and 1 for the
+    // empty type a declaration has before it is typed
+    private static final String[] TYPE_CODES = new String[128];
+
+    static {
+        TYPE_CODES[1] = "";
+        for (char code = 2; code < TYPE_CODES.length; code++) {
+            TYPE_CODES[code] = String.valueOf(code);
+        }
+    }
+
+    private int size;
+    private byte[] kind;
+    private int[] symbol;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] unid;
+    private int[] token;
+
+    private byte[] type;
+    private int[] function;
+    private SymbolTable.VariableInfo[] binding;
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private String[] symbols = new String[64];
+    private int symbolCount;
+
+    public SyntaxArena(int capacity) {
+        capacity = Math.max(capacity, 1);
+        kind = new byte[capacity];
+        symbol = new int[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        unid = new int[capacity];
+        token = new int[capacity];
+    }
+
+    // Adds a node with no parent and no children yet; token is the index of the token a leaf was made from, or
+    // NONE. Returns the new node
+    public int add(NodeKind nodeKind, String value, int nodeUnid, int tokenIndex) {
+        if (size == kind.length) {
+            int capacity = size * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            symbol = Arrays.copyOf(symbol, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            unid = Arrays.copyOf(unid, capacity);
+            token = Arrays.copyOf(token, capacity);
+            if (type != null) {
+                type = Arrays.copyOf(type, capacity);
+            }
+            if (function != null) {
+                function = Arrays.copyOf(function, capacity);
+                Arrays.fill(function, size, capacity, NONE);
+            }
+            if (binding != null) {
+                binding = Arrays.copyOf(binding, capacity);
+            }
+        }
+        int node = size++;
+        kind[node] = (byte) nodeKind.ordinal();
+        symbol[node] = intern(value);
+        parent[node] = NONE;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        unid[node] = nodeUnid;
+        token[node] = tokenIndex;
+        return node;
+    }
+
+    // Adds a node known only by its text, as read back from a saved tree
+    public int add(String value, int nodeUnid) {
+        return add(NodeKind.of(value), value, nodeUnid, NONE);
+    }
+
+    // Makes child the next child of parentNode after previous, or its first child when previous is NONE
+    public void link(int parentNode, int previous, int child) {
+        if (previous == NONE) {
+            firstChild[parentNode] = child;
+        } else {
+            nextSibling[previous] = child;
+        }
+        parent[child] = parentNode;
+    }
+
+    // Makes nodes[from..to) the children of parentNode, in that order
+    public void adopt(int parentNode, int[] nodes, int from, int to) {
+        int previous = NONE;
+        for (int i = from; i < to; i++) {
+            link(parentNode, previous, nodes[i]);
+            previous = nodes[i];
+        }
+    }
+
+    private int intern(String value) {
+        Integer id = symbolIds.get(value);
+        if (id == null) {
+            if (symbolCount == symbols.length) {
+                symbols = Arrays.copyOf(symbols, symbolCount * 2);
+            }
+            id = symbolCount++;
+            symbols[id] = value;
+            symbolIds.put(value, id);
+        }
+        return id;
+    }
+
+    // Copy of the tree as parsed: structure, values, UNIDs and tokens, without anything the passes recorded
+    public SyntaxArena copy() {
+        SyntaxArena copy = new SyntaxArena(size);
+        copy.size = size;
+        System.arraycopy(kind, 0, copy.kind, 0, size);
+        System.arraycopy(symbol, 0, copy.symbol, 0, size);
+        System.arraycopy(parent, 0, copy.parent, 0, size);
+        System.arraycopy(firstChild, 0, copy.firstChild, 0, size);
+        System.arraycopy(nextSibling, 0, copy.nextSibling, 0, size);
+        System.arraycopy(unid, 0, copy.unid, 0, size);
+        System.arraycopy(token, 0, copy.token, 0, size);
+        copy.symbols = Arrays.copyOf(symbols, symbols.length);
+        copy.symbolCount = symbolCount;
+        copy.symbolIds.putAll(symbolIds);
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Every builder adds the root first
+    public int root() {
+        return size > 0 ? 0 : NONE;
+    }
+
+    public NodeKind kind(int node) {
+        return KINDS[kind[node]];
+    }
+
+    public String value(int node) {
+        return symbols[symbol[node]];
+    }
+
+    public int parent(int node) {
+        return parent[node];
+    }
+
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    public int unid(int node) {
+        return unid[node];
+    }
+
+    public void setUnid(int node, int nodeUnid) {
+        unid[node] = nodeUnid;
+    }
+
+    public int token(int node) {
+        return token[node];
+    }
+
+    public boolean isLeaf(int node) {
+        return firstChild[node] == NONE;
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    // The index-th child, or NONE
+    public int child(int node, int index) {
+        int child = firstChild[node];
+        for (int i = 0; i < index && child != NONE; i++) {
+            child = nextSibling[child];
+        }
+        return child;
+    }
+
+    // The node after this one in preorder, or NONE at the end
+    public int nextInPreorder(int node) {
+        if (firstChild[node] != NONE) {
+            return firstChild[node];
+        }
+        while (node != NONE && nextSibling[node] == NONE) {
+            node = parent[node];
+        }
+        return node == NONE ? NONE : nextSibling[node];
+    }
+
+    // The type code TypeChecker worked out for this node, or null until it has
+    public String type(int node) {
+        return type == null || type[node] == 0 ? null : TYPE_CODES[type[node]];
+    }
+
+    public void setType(int node, String typeCode) {
+        if (type == null) {
+            type = new byte[kind.length];
+        }
+        if (typeCode == null) {
+            type[node] = 0;
+            return;
+        }
+        if (typeCode.isEmpty()) {
+            type[node] = 1;
+            return;
+        }
+        if (typeCode.length() != 1 || typeCode.charAt(0) < 2 || typeCode.charAt(0) >= TYPE_CODES.length) {
+            throw new IllegalArgumentException("Not a type code: " + typeCode);
+        }
+        type[node] = (byte) typeCode.charAt(0);
+    }
+
+    // The DECL this node is part of, NONE in the main program; set by ScopeAnalysis
+    public int function(int node) {
+        return function == null ? NONE : function[node];
+    }
+
+    public void setFunction(int node, int declaration) {
+        if (function == null) {
+            function = new int[kind.length];
+            Arrays.fill(function, NONE);
+        }
+        function[node] = declaration;
+    }
+
+    // On a V_ or F_ leaf, the declaration ScopeAnalysis bound it to, or null
+    public SymbolTable.VariableInfo binding(int node) {
+        return binding == null ? null : binding[node];
+    }
+
+    public void setBinding(int node, SymbolTable.VariableInfo info) {
+        if (binding == null) {
+            binding = new SymbolTable.VariableInfo[kind.length];
+        }
+        binding[node] = info;
+    }
+
+    // Writes syntax_tree.bin; see SyntaxTree.saveToBinary for the format
+    public void saveToBinary(String filePath) throws IOException {
+        // symbols are numbered in the order saveToBinary has always met them: depth first, last child first
+        int[] symbolIndex = new int[symbolCount];
+        Arrays.fill(symbolIndex, NONE);
+        String[] order = new String[symbolCount];
+        int used = 0;
+        int[] work = new int[16];
+        int top = 0;
+        if (size > 0) {
+            work[top++] = root();
+        }
+        while (top > 0) {
+            int node = work[--top];
+            if (symbolIndex[symbol[node]] == NONE) {
+                symbolIndex[symbol[node]] = used;
+                order[used++] = symbols[symbol[node]];
+            }
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if (top == work.length) {
+                    work = Arrays.copyOf(work, top * 2);
+                }
+                work[top++] = child;
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            BinaryFormat.writeMagic(out, SyntaxTree.BINARY_MAGIC, SyntaxTree.BINARY_VERSION);
+            BinaryFormat.writeVarInt(out, used);
+            for (int i = 0; i < used; i++) {
+                BinaryFormat.writeString(out, order[i]);
+            }
+            BinaryFormat.writeVarInt(out, size);
+            int previousUnid = 0;
+            for (int node = root(); node != NONE; node = nextInPreorder(node)) {
+                BinaryFormat.writeVarInt(out, symbolIndex[symbol[node]]);
+                BinaryFormat.writeSignedVarInt(out, unid[node] - previousUnid);
+                BinaryFormat.writeVarInt(out, childCount(node));
+                previousUnid = unid[node];
+            }
+        }
+    }
+}
@@ -1,4 +1,6 @@
 public class SyntaxException extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public SyntaxException(String error){
         super(error);
     }
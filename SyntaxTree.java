@@ -3,79 +3,49 @@ import org.w3c.dom.Element;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SyntaxTree {
-    public Node root;
-    private int currentUNID = 0; // Counter for generating unique node IDs
-
-    // Node class definition
-    public static class Node {
-        String value; // This can be a terminal or non-terminal symbol
-        Node parent;
-        List<Node> children = new ArrayList<>();
-        int unid; // Unique Node ID
-
-        public Node(String value, int unid) {
-            this.value = value;
-            this.unid = unid;
-        }
-    }
-
-    // Method to create the root of the tree
-    public void createRoot(String value) {
-        this.root = new Node(value, currentUNID++);
-    }
+    public static final String BINARY_MAGIC = "RTRE";
+    static final int BINARY_VERSION = 1;
 
-    // Method to create leaf nodes
-    public Node createLeafNode(String value, Node parent) {
-        Node newLeaf = new Node(value, currentUNID++);
-        if (parent != null) {
-            parent.children.add(newLeaf);
-            newLeaf.parent = parent;
-        }
-        return newLeaf;
-    }
+    private final SyntaxArena arena;
 
-    // Method to create inner nodes
-    public Node createInnerNode(String value, Node parent) {
-        Node newNode = new Node(value, currentUNID++);
-        if (parent != null) {
-            parent.children.add(newNode);
-            newNode.parent = parent;
-        }
-        return newNode;
+    public SyntaxTree() {
+        this(new SyntaxArena(256));
     }
 
-    public void createRoot(String value, int unid) {
-        this.root = new Node(value, unid);
+    public SyntaxTree(SyntaxArena arena) {
+        this.arena = arena;
     }
 
-    // Method to create a leaf node with a specific UNID
-    public Node createLeafNode(String value, Node parent, int unid) {
-        Node newLeaf = new Node(value, unid);
-        if (parent != null) {
-            parent.children.add(newLeaf);
-            newLeaf.parent = parent;
-        }
-        return newLeaf;
+    public SyntaxArena getArena() {
+        return arena;
     }
 
-    // Method to create an inner node with a specific UNID
-    public Node createInnerNode(String value, Node parent, int unid) {
-        Node newNode = new Node(value, unid);
-        if (parent != null) {
-            parent.children.add(newNode);
-            newNode.parent = parent;
-        }
-        return newNode;
+    // The root node, or SyntaxArena.NONE for an empty tree
+    public int getRoot() {
+        return arena.root();
     }
 
     // Method to save the syntax tree to an XML file
@@ -91,16 +61,17 @@ public class SyntaxTree {
         Element rootNodeElement = doc.createElement("ROOT");
         rootElement.appendChild(rootNodeElement);
         
+        int root = arena.root();
         // Add UNID for the root
-        rootNodeElement.appendChild(createElementWithText(doc, "UNID", String.valueOf(root.unid)));
+        rootNodeElement.appendChild(createElementWithText(doc, "UNID", String.valueOf(arena.unid(root))));
         
         // Add SYMB for the root
-        rootNodeElement.appendChild(createElementWithText(doc, "SYMB", root.value));
+        rootNodeElement.appendChild(createElementWithText(doc, "SYMB", arena.value(root)));
         
         // Add CHILDREN element for the root
         Element childrenElement = doc.createElement("CHILDREN");
-        for (Node child : root.children) {
-            childrenElement.appendChild(createElementWithText(doc, "ID", String.valueOf(child.unid)));
+        for (int child = arena.firstChild(root); child != SyntaxArena.NONE; child = arena.nextSibling(child)) {
+            childrenElement.appendChild(createElementWithText(doc, "ID", String.valueOf(arena.unid(child))));
         }
         rootNodeElement.appendChild(childrenElement);
 
@@ -124,78 +95,237 @@ public class SyntaxTree {
         transformer.transform(source, result);
     }
 
-    private void addInnerNodesToXML(Document doc, Element parentElement, Node node) {
-        for (Node child : node.children) {
-            if (child.children.size() > 0) { // Only process inner nodes
+    // Method to load a syntax tree written by saveToXML. The file is streamed once with StAX, every
+    // ROOT/IN/LEAF record is indexed by UNID, and the children are linked afterwards in a single pass.
+    public static SyntaxTree loadFromXML(String filePath) throws Exception {
+        SyntaxArena arena = new SyntaxArena(256);
+        Map<Integer, Integer> nodeMap = new HashMap<>();
+        List<Integer> parents = new ArrayList<>();
+        List<List<Integer>> childIds = new ArrayList<>();
+
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filePath))) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            String record = null;
+            int unid = -1;
+            String symb = null;
+            List<Integer> ids = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "ROOT":
+                        case "IN":
+                        case "LEAF":
+                            record = reader.getLocalName();
+                            unid = -1;
+                            symb = null;
+                            ids = new ArrayList<>();
+                            break;
+                        case "UNID":
+                            unid = Integer.parseInt(reader.getElementText().trim());
+                            break;
+                        case "SYMB":
+                        case "TERMINAL":
+                            symb = reader.getElementText();
+                            break;
+                        case "ID":
+                            ids.add(Integer.parseInt(reader.getElementText().trim()));
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(record)) {
+                    if (record.equals("ROOT") && arena.root() != SyntaxArena.NONE) {
+                        throw new Exception("ROOT must be the first record in " + filePath);
+                    }
+                    if (!record.equals("ROOT") && arena.root() == SyntaxArena.NONE) {
+                        throw new Exception("No ROOT element in " + filePath);
+                    }
+                    int node = arena.add(symb, unid);
+                    nodeMap.put(unid, node);
+                    if (!ids.isEmpty()) {
+                        parents.add(node);
+                        childIds.add(ids);
+                    }
+                    record = null;
+                }
+            }
+            reader.close();
+        }
+
+        if (arena.root() == SyntaxArena.NONE) {
+            throw new Exception("No ROOT element in " + filePath);
+        }
+
+        for (int i = 0; i < parents.size(); i++) {
+            int parent = parents.get(i);
+            int previous = SyntaxArena.NONE;
+            for (int childUnid : childIds.get(i)) {
+                Integer child = nodeMap.get(childUnid);
+                if (child != null) {
+                    arena.link(parent, previous, child);
+                    previous = child;
+                }
+            }
+        }
+        return new SyntaxTree(arena);
+    }
+
+    // Compact binary alternative to syntax_tree.xml:
+    //   "RTRE", version byte
+    //   varint symbol count, then every distinct node value as varint length + UTF-8 bytes
+    //   varint node count, then the nodes in preorder: varint symbol index, zigzag varint UNID delta, varint child count
+    public void saveToBinary(String filePath) throws IOException {
+        arena.saveToBinary(filePath);
+    }
+
+    // Reads a tree written by saveToBinary in one pass; only the open path from the root is kept on a stack
+    public static SyntaxTree loadFromBinary(String filePath) throws IOException {
+        SyntaxArena arena;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            BinaryFormat.readMagic(in, BINARY_MAGIC, BINARY_VERSION);
+            String[] symbols = new String[BinaryFormat.readVarInt(in)];
+            for (int i = 0; i < symbols.length; i++) {
+                symbols[i] = BinaryFormat.readString(in);
+            }
+
+            int count = BinaryFormat.readVarInt(in);
+            arena = new SyntaxArena(count);
+            // the open path from the root: each node, its last child so far and how many children it still lacks
+            int[] openNodes = new int[16];
+            int[] lastChildren = new int[16];
+            int[] missingChildren = new int[16];
+            int open = 0;
+            int unid = 0;
+            for (int i = 0; i < count; i++) {
+                int symbol = BinaryFormat.readVarInt(in);
+                unid += BinaryFormat.readSignedVarInt(in);
+                int childCount = BinaryFormat.readVarInt(in);
+                if (symbol >= symbols.length) {
+                    throw new IOException("Corrupt node " + i + " in " + filePath);
+                }
+
+                if (open == 0 && arena.root() != SyntaxArena.NONE) {
+                    throw new IOException("More than one root in " + filePath);
+                }
+                int node = arena.add(symbols[symbol], unid);
+                if (open > 0) {
+                    arena.link(openNodes[open - 1], lastChildren[open - 1], node);
+                    lastChildren[open - 1] = node;
+                    missingChildren[open - 1]--;
+                }
+
+                if (childCount > 0) {
+                    if (open == openNodes.length) {
+                        openNodes = Arrays.copyOf(openNodes, open * 2);
+                        lastChildren = Arrays.copyOf(lastChildren, open * 2);
+                        missingChildren = Arrays.copyOf(missingChildren, open * 2);
+                    }
+                    openNodes[open] = node;
+                    lastChildren[open] = SyntaxArena.NONE;
+                    missingChildren[open] = childCount;
+                    open++;
+                }
+                while (open > 0 && missingChildren[open - 1] == 0) {
+                    open--;
+                }
+            }
+            if (arena.root() == SyntaxArena.NONE || open > 0) {
+                throw new IOException("Truncated syntax tree in " + filePath);
+            }
+        }
+        return new SyntaxTree(arena);
+    }
+
+    // Adds an IN element for every inner node below node, in preorder. The statement chain makes the tree about
+    // as deep as the program is long, so this walks the arena in preorder instead of recursing.
+    private void addInnerNodesToXML(Document doc, Element parentElement, int node) {
+        for (int child = below(node, node); child != SyntaxArena.NONE; child = below(node, child)) {
+            if (!arena.isLeaf(child)) { // Only process inner nodes
                 Element innerNodeElement = doc.createElement("IN");
                 
                 // PARENT
-                innerNodeElement.appendChild(createElementWithText(doc, "PARENT", String.valueOf(node.unid)));
+                innerNodeElement.appendChild(createElementWithText(doc, "PARENT", String.valueOf(arena.unid(arena.parent(child)))));
                 // UNID
-                innerNodeElement.appendChild(createElementWithText(doc, "UNID", String.valueOf(child.unid)));
+                innerNodeElement.appendChild(createElementWithText(doc, "UNID", String.valueOf(arena.unid(child))));
                 // SYMB
-                innerNodeElement.appendChild(createElementWithText(doc, "SYMB", child.value));
+                innerNodeElement.appendChild(createElementWithText(doc, "SYMB", arena.value(child)));
                 
                 // CHILDREN
                 Element childrenElement = doc.createElement("CHILDREN");
-                for (Node grandchild : child.children) {
-                    childrenElement.appendChild(createElementWithText(doc, "ID", String.valueOf(grandchild.unid)));
+                for (int grandchild = arena.firstChild(child); grandchild != SyntaxArena.NONE;
+                        grandchild = arena.nextSibling(grandchild)) {
+                    childrenElement.appendChild(createElementWithText(doc, "ID", String.valueOf(arena.unid(grandchild))));
                 }
                 innerNodeElement.appendChild(childrenElement);
 
                 parentElement.appendChild(innerNodeElement);
-                
-                // Recursively add inner nodes
-                addInnerNodesToXML(doc, parentElement, child);
             }
         }
     }
 
-    private void addLeafNodesToXML(Document doc, Element parentElement, Node node) {
-        for (Node child : node.children) {
-            if (child.children.isEmpty()) { // Only process leaf nodes
+    // Adds a LEAF element for every leaf below node, in preorder
+    private void addLeafNodesToXML(Document doc, Element parentElement, int node) {
+        for (int child = below(node, node); child != SyntaxArena.NONE; child = below(node, child)) {
+            if (arena.isLeaf(child)) { // Only process leaf nodes
                 Element leafElement = doc.createElement("LEAF");
                 
                 // PARENT
-                leafElement.appendChild(createElementWithText(doc, "PARENT", String.valueOf(node.unid)));
+                leafElement.appendChild(createElementWithText(doc, "PARENT", String.valueOf(arena.unid(arena.parent(child)))));
                 // UNID
-                leafElement.appendChild(createElementWithText(doc, "UNID", String.valueOf(child.unid)));
+                leafElement.appendChild(createElementWithText(doc, "UNID", String.valueOf(arena.unid(child))));
                 // TERMINAL
                 Element terminalElement = doc.createElement("TERMINAL");
-                terminalElement.setTextContent(child.value); // Assuming child.value contains the token directly
+                terminalElement.setTextContent(arena.value(child)); // Assuming the value contains the token directly
                 leafElement.appendChild(terminalElement);
                 
                 parentElement.appendChild(leafElement);
-            } else {
-                addLeafNodesToXML(doc, parentElement, child); // Recurse for inner nodes
             }
         }
     }
 
+    // The node after current in a preorder walk of the subtree below top, or NONE once the walk leaves it
+    private int below(int top, int current) {
+        if (!arena.isLeaf(current)) {
+            return arena.firstChild(current);
+        }
+        while (current != top && arena.nextSibling(current) == SyntaxArena.NONE) {
+            current = arena.parent(current);
+        }
+        return current == top ? SyntaxArena.NONE : arena.nextSibling(current);
+    }
+
     private Element createElementWithText(Document doc, String tagName, String textContent) {
         Element element = doc.createElement(tagName);
         element.setTextContent(textContent);
         return element;
     }
 
-    public Node getRoot() {
-        return root;
-    }
-
-    public void printTree(Node node, String indent, boolean isTail) {
-        System.out.println(indent + (isTail ? "└── " : "├── ") + "Node[UNID=" + node.unid + ", Value=" + node.value + "]");
-        for (int i = 0; i < node.children.size() - 1; i++) {
-            printTree(node.children.get(i), indent + (isTail ? "    " : "│   "), false);
-        }
-        if (node.children.size() > 0) {
-            printTree(node.children.get(node.children.size() - 1), indent + (isTail ? "    " : "│   "), true);
+    public void printTree(int node, String indent, boolean isTail) {
+        // Explicit stack, same output as printing each child subtree recursively
+        Deque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[] { node, indent, isTail });
+        while (!pending.isEmpty()) {
+            Object[] entry = pending.pop();
+            int current = (Integer) entry[0];
+            String currentIndent = (String) entry[1];
+            boolean currentIsTail = (Boolean) entry[2];
+            System.out.println(currentIndent + (currentIsTail ? "└── " : "├── ") + "Node[UNID=" + arena.unid(current)
+                    + ", Value=" + arena.value(current) + "]");
+            String childIndent = currentIndent + (currentIsTail ? "    " : "│   ");
+            int count = arena.childCount(current);
+            for (int i = count - 1; i >= 0; i--) {
+                pending.push(new Object[] { arena.child(current, i), childIndent, i == count - 1 });
+            }
         }
     }
 
     // Method to print the entire tree starting from the root
     public void printSyntaxTree() {
-        if (root != null) {
-            printTree(root, "", true);
+        if (arena.root() != SyntaxArena.NONE) {
+            printTree(arena.root(), "", true);
         }
     }
 }
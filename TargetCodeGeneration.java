@@ -1,399 +1,382 @@
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 
 public class TargetCodeGeneration {
-    private Map<Integer, SymbolTable.VariableInfo> symbolTable = new HashMap<>();
     private int lineNumber = 10;
     private Map<String, Integer> functionLineNumbers = new HashMap<>();
     private List<String> localVars = new ArrayList<>();
     private List<String> paramVars = new ArrayList<>();
     private int maxIterations = 20;
+    // While generating relocatable code, the index each name is written as; null for plain code
+    private Map<SymbolTable.VariableInfo, Integer> nameSlots;
 
-    public TargetCodeGeneration(Map<Integer, SymbolTable.VariableInfo> sT) {
-        this.symbolTable = sT;
+    // Relocatable code marks a line offset as LINE_SLOT offset LINE_SLOT and a name as NAME_SLOT index
+    // NAME_SLOT; neither character can appear in a program
+    private static final char LINE_SLOT = '\u0001';
+    private static final char NAME_SLOT = '\u0002';
+
+    // Names are translated through the declarations AstLowering left on the Ast, so no symbol table is needed
+    public TargetCodeGeneration() {
+    }
+
+    public String translateProgram(Ast.Program program) {
+        StringBuilder result = new StringBuilder(translateProgramHead(program));
+        for (Ast.FunctionDecl function : program.functions()) {
+            result.append(translateFunction(function));
+        }
+        return result.toString();
     }
 
-    public String translateToBasic(SyntaxTree.Node node) {
+    // Everything the program generates before the functions: the setup lines, globals, main algorithm and END
+    String translateProgramHead(Ast.Program program) {
         String result = "";
+        result += label(lineNumber) + " DIM M(7, " + maxIterations + ")\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " LET f = 0\n";
+        lineNumber += 10;
+        StringBuilder globVars = new StringBuilder();
+        for (Ast.VarDecl global : program.globals()) {
+            SymbolTable.VariableInfo varInfo = global.name().symbol();
+            globVars.append(label(lineNumber) + " LET " + name(varInfo) + " = 0\n");
+            lineNumber += 10;
+        }
+        String algoCode = translateAlgo(program.body());
+        int stopNum = lineNumber;
+        lineNumber += 10;
+        result += globVars + "\n" + algoCode + "\n" + label(stopNum) + " END\n";
+        return result;
+    }
 
-        switch (node.value) {
-            case "PROG":
-                result += lineNumber + " DIM M(7, " + maxIterations + ")\n";
-                lineNumber += 10;
-                result += lineNumber + " LET f = 0\n";
-                lineNumber += 10;
-                String globVars = translateToBasic(node.children.get(1));
-                String algoCode = translateToBasic(node.children.get(2));
-                int stopNum = lineNumber;
-                lineNumber += 10;
-                String funcCode = translateToBasic(node.children.get(3));
-                result += globVars + "\n" + algoCode + "\n" + stopNum + " END\n" + funcCode;
-                break;
-
-            case "GLOBVARS":
-                for (SyntaxTree.Node child : node.children) {
-                    if (child.value.equals("VNAME")) {
-                        SymbolTable.VariableInfo varInfo = symbolTable.get(child.children.get(0).unid);
-                        result += lineNumber + " LET " + varInfo.uniqueName + " = 0\n";
-                        lineNumber += 10;
-                    } else if (child.value.equals("GLOBVARS")) {
-                        result += translateToBasic(child);
-                    }
-                }
-                break;
-            case "ALGO":
-                result += translateToBasic(node.children.get(1)) + "\n";
-                break;
-
-            case "INSTRUC":
-                if (node.children.get(0).value.equals("e")) {
-                    result += lineNumber + " REM END";
-                    lineNumber += 10;
-                } else {
-                    for (SyntaxTree.Node child : node.children) {
-                        result += translateToBasic(child);
-                    }
-                }
-                break;
-
-            case "COMMAND":
-                if (node.children.get(0).value.equals("skip")) {
-                    result += lineNumber + " REM DO NOTHING\n";
-                    lineNumber += 10;
-                } else if (node.children.get(0).value.equals("halt")) {
-                    result += lineNumber + " STOP\n";
-                    lineNumber += 10;
-                } else if (node.children.get(0).value.equals("print")) {
-                    result += lineNumber + " PRINT " + translateToBasic(node.children.get(1)) + "\n";
-                    lineNumber += 10;
-                } else if (node.children.get(0).value.equals("return")) {
-                    if (node.children.size() > 1) {
-                        // Return a value (store it in M(0, f))
-                        String returnValue = translateToBasic(node.children.get(1));
-                        result += lineNumber + " LET f = f - 1\n";
-                        lineNumber += 10;
-                        result += lineNumber + " LET M(0, f) = " + returnValue + "\n";
-                        lineNumber += 10;
-                    }
-                    result += lineNumber + " RETURN\n";
-                    lineNumber += 10;
-                } else {
-                    result += translateToBasic(node.children.get(0));
+    // For code generated one unit at a time: the program head, or a function, as Relocatable code whose
+    // line numbers count from 0 and whose names are written as their index in nameSlots
+    Relocatable relocatableProgramHead(Ast.Program program, Map<SymbolTable.VariableInfo, Integer> nameSlots) {
+        return relocatable(nameSlots, () -> translateProgramHead(program));
+    }
+
+    Relocatable relocatableFunction(Ast.FunctionDecl function, Map<SymbolTable.VariableInfo, Integer> nameSlots) {
+        return relocatable(nameSlots, () -> translateFunction(function));
+    }
+
+    private Relocatable relocatable(Map<SymbolTable.VariableInfo, Integer> nameSlots, Supplier<String> translation) {
+        lineNumber = 0;
+        this.nameSlots = nameSlots;
+        try {
+            return new Relocatable(translation.get(), lineNumber);
+        } finally {
+            this.nameSlots = null;
+        }
+    }
+
+    // How a line number is written: as itself, or as a slot while generating relocatable code
+    private String label(int line) {
+        return nameSlots == null ? Integer.toString(line) : LINE_SLOT + Integer.toString(line) + LINE_SLOT;
+    }
+
+    private String name(SymbolTable.VariableInfo info) {
+        if (nameSlots == null) {
+            return info.uniqueName;
+        }
+        Integer slot = nameSlots.get(info);
+        if (slot == null) {
+            throw new IllegalStateException("No name slot for " + info.uniqueName);
+        }
+        return NAME_SLOT + Integer.toString(slot) + NAME_SLOT;
+    }
+
+    // Generated code that can be placed at any line and under other names: the text between the slots,
+    // and for each slot a line offset or, for a name, -(index + 1)
+    static final class Relocatable {
+        private final String[] text; // text[i] comes before slot i; the last entry after every slot
+        private final int[] slots;
+        private final int lines;     // the line numbers the code takes up, 10 per line
+
+        private Relocatable(String code, int lines) {
+            List<String> text = new ArrayList<>();
+            int[] slots = new int[16];
+            int count = 0;
+            int start = 0;
+            for (int i = 0; i < code.length(); i++) {
+                char c = code.charAt(i);
+                if (c != LINE_SLOT && c != NAME_SLOT) {
+                    continue;
                 }
-                break;
-
-            case "ASSIGN":
-                if (node.children.size() == 2) {
-                    result += lineNumber + " INPUT " + translateToBasic(node.children.get(0)) + "\n";
-                    lineNumber += 10;
-                } else if (node.children.size() == 3) {
-                    if (node.children.get(2).children.get(0).value.equals("CALL")) {
-                        SymbolTable.VariableInfo variableInfo = symbolTable
-                                .get(node.children.get(2).children.get(0).children.get(0).children.get(0).unid);
-                        String functionName = variableInfo.uniqueName;
-                        String arg1 = translateToBasic(node.children.get(2).children.get(0).children.get(2));
-                        String arg2 = translateToBasic(node.children.get(2).children.get(0).children.get(4));
-                        String arg3 = translateToBasic(node.children.get(2).children.get(0).children.get(6));
-                        result += saveCurrLocalVariables();
-                        result += lineNumber + " LET f = f + 1\n";
-                        lineNumber += 10;
-                        result += lineNumber + " IF f > " + maxIterations + " THEN\n";
-                        lineNumber += 10;
-                        result += lineNumber + " LET f = f - 1\n";
-                        lineNumber += 10;
-                        result += lineNumber + " RETURN\n";
-                        lineNumber += 10;
-                        result += lineNumber + " END IF\n";
-                        lineNumber += 10;
-                        result += lineNumber + " LET M(1, f) = " + arg1 + "\n";
-                        lineNumber += 10;
-                        result += lineNumber + " LET M(2, f) = " + arg2 + "\n";
-                        lineNumber += 10;
-                        result += lineNumber + " LET M(3, f) = " + arg3 + "\n";
-                        lineNumber += 10;
-                        result += lineNumber + " GOSUB " + functionName + "\n";
-                        lineNumber += 10;
-                        if (!variableInfo.type.equals("n")) {
-                            result += lineNumber + " LET f = f - 1\n";
-                            lineNumber += 10;
-                        }
-
-                        result += restoreLocalVariables();
-                    }
-                    SymbolTable.VariableInfo varInfo = symbolTable.get(node.children.get(0).children.get(0).unid);
-                    String x = "";
-                    if(varInfo.type.equals("t")){
-                        x = varInfo.uniqueName + "$";
-                    }else{
-                        x = varInfo.uniqueName;
-                    }
-
-                    result += lineNumber + " LET " + x + " = " + translateToBasic(node.children.get(2)) + "\n";
-                    lineNumber += 10;
+                int end = code.indexOf(c, i + 1);
+                int value = Integer.parseInt(code, i + 1, end, 10);
+                if (count == slots.length) {
+                    slots = Arrays.copyOf(slots, count * 2);
                 }
-                break;
+                slots[count++] = c == LINE_SLOT ? value : -(value + 1);
+                text.add(code.substring(start, i));
+                start = end + 1;
+                i = end;
+            }
+            text.add(code.substring(start));
+            this.text = text.toArray(new String[0]);
+            this.slots = Arrays.copyOf(slots, count);
+            this.lines = lines;
+        }
 
-            case "ATOMIC":
-                if (node.children.get(0).value.equals("VNAME")) {
-                    result += translateToBasic(node.children.get(0));
-                } else if (node.children.get(0).value.equals("CONST")) {
-                    result += translateToBasic(node.children.get(0));
-                }
+        int lines() {
+            return lines;
+        }
 
-                break;
-            case "VNAME":
-                int originalUnid = node.children.get(0).unid;
-                SymbolTable.VariableInfo varInfo = symbolTable.get(originalUnid);
-                if(varInfo.type.equals("t")){
-                    result += varInfo.uniqueName + "$";
-                }else{
-                    result += varInfo.uniqueName;
-                }
-                
-                break;
-
-            case "CONST":
-                String constValue = node.children.get(0).value;
-                Pattern pattern = Pattern.compile("-?\\d+(\\.\\d+)?");
-                if (pattern.matcher(constValue).matches()) {
-                    result += constValue;
+        // The code with its first line at startLine and slot i's name names.get(i)
+        String place(int startLine, List<String> names) {
+            StringBuilder code = new StringBuilder();
+            for (int i = 0; i < slots.length; i++) {
+                code.append(text[i]);
+                if (slots[i] >= 0) {
+                    code.append(startLine + slots[i]);
                 } else {
-                    result += constValue;
+                    code.append(names.get(-slots[i] - 1));
                 }
-                break;
+            }
+            return code.append(text[slots.length]).toString();
+        }
+    }
 
-            case "TERM":
-                result += translateToBasic(node.children.get(0));
-                break;
+    // Functions declared inside this one are not generated
+    public String translateFunction(Ast.FunctionDecl function) {
+        String result = "";
+        SymbolTable.VariableInfo fnameInformation = function.name().symbol();
+        boolean returnsNum = function.returnType().equals("num");
 
-            case "CALL":
+        if (returnsNum || function.returnType().equals("void")) {
+            functionLineNumbers.put(fnameInformation.uniqueName, lineNumber);
+            result += label(lineNumber) + " REM DEF FN" + name(fnameInformation) + "(a1, a2, a3)\n";
+            lineNumber += 10;
+            paramVars = new ArrayList<>();
+            result += linkParameterVariables(function.parameters());
+        }
 
-                SymbolTable.VariableInfo variableInfo = symbolTable.get(node.children.get(0).children.get(0).unid);
-                String functionName = variableInfo.uniqueName;
-                // if type is num
-                if (symbolTable.get(variableInfo.unid).type.equals("n")) {
-                    result += " M(0,f)\n";
-                    lineNumber += 10;
-                } else {
-                    String arg1 = translateToBasic(node.children.get(2));
-                    String arg2 = translateToBasic(node.children.get(4));
-                    String arg3 = translateToBasic(node.children.get(6));
-                    result += saveCurrLocalVariables();
-                    result += lineNumber + " LET f = f + 1\n";
-                    lineNumber += 10;
-                    result += lineNumber + " IF f > " + maxIterations + " THEN\n";
-                    lineNumber += 10;
-                    result += lineNumber + " LET f = f - 1\n";
-                    lineNumber += 10;
-                    result += lineNumber + " RETURN\n";
-                    lineNumber += 10;
-                    result += lineNumber + " END IF\n";
-                    lineNumber += 10;
-                    result += lineNumber + " LET M(1, f) = " + arg1 + "\n";
-                    lineNumber += 10;
-                    result += lineNumber + " LET M(2, f) = " + arg2 + "\n";
-                    lineNumber += 10;
-                    result += lineNumber + " LET M(3, f) = " + arg3 + "\n";
-                    lineNumber += 10;
-                    result += lineNumber + " GOSUB " + functionName + "\n";
-                    lineNumber += 10;
-                    if (!variableInfo.type.equals("n")) {
-                        result += lineNumber + " LET f = f - 1\n";
-                        lineNumber += 10;
-                    }
-                    result += restoreLocalVariables();
-                }
+        localVars = new ArrayList<>();
+        result += saveLocalVariables(function.locals());
+        result += translateAlgo(function.body());
 
-                break;
-
-            case "OP":
-                if (node.children.get(0).value.equals("UNOP")) {
-                    String unopName = translateToBasic(node.children.get(0));
-                    String arg = translateToBasic(node.children.get(2));
-                    result += unopName + "(" + arg + ")";
-                } else if (node.children.get(0).value.equals("BINOP")) {
-                    String leftArg = translateToBasic(node.children.get(2));
-                    String rightArg = translateToBasic(node.children.get(4));
-                    String binopName = translateToBasic(node.children.get(0));
-                    result += leftArg + " " + binopName + " " + rightArg;
-                }
-                break;
-            case "UNOP":
-                if (node.children.get(0).value.equals("sqrt")) {
-                    result += "SQR";
-                } else if (node.children.get(0).value.equals("not")) {
-                    result += "NOT";
-                }
-                break;
-
-            case "BINOP":
-                switch (node.children.get(0).value) {
-                    case "eq":
-                        return "=";
-                    case "grt":
-                        return ">";
-                    case "add":
-                        return "+";
-                    case "sub":
-                        return "-";
-                    case "mul":
-                        return "*";
-                    case "div":
-                        return "/";
-                    default:
-                        throw new IllegalArgumentException(
-                                "Unsupported binary operator: " + node.children.get(0).value);
-                }
+        // a num function has already returned through its return statement
+        if (!returnsNum) {
+            result += label(lineNumber) + " RETURN\n";
+        }
+        lineNumber += 10;
+        return result;
+    }
 
-            case "ARG":
-                result += translateToBasic(node.children.get(0));
-                break;
-
-            case "FNAME":
-                SymbolTable.VariableInfo fnameInfo = symbolTable.get(node.children.get(0).unid);
-                result += fnameInfo.uniqueName;
-                break;
-
-            case "BRANCH":
-                String code1 = translateToBasic(node.children.get(1));
-                result += lineNumber + " IF " + code1 + " THEN\n";
-                lineNumber += 10;
-                String code2 = translateToBasic(node.children.get(3));
-                result += code2;
-                result += lineNumber + " ELSE\n";
-                lineNumber += 10;
-                String code3 = translateToBasic(node.children.get(5));
-                result += code3;
-                result += lineNumber + " END IF\n";
-                lineNumber += 10;
-                break;
-            case "COND":
-                result += translateToBasic(node.children.get(0));
-                break;
-            case "SIMPLE":
-                String leftSide = translateToBasic(node.children.get(2));
-                String rightSide = translateToBasic(node.children.get(4));
-                String relop = translateToBasic(node.children.get(0));
-                result += leftSide + " " + relop + " " + rightSide;
-                break;
-            case "COMPOSIT":
-                if (node.children.get(0).value.equals("UNOP")) {
-                    String unop = translateToBasic(node.children.get(0));
-                    String cond = translateToBasic(node.children.get(2));
-                    result += unop + "(" + cond + ")";
-                } else {
-                    String leftCond = translateToBasic(node.children.get(2));
-                    String rightCond = translateToBasic(node.children.get(4));
-                    String binop = translateToBasic(node.children.get(0));
-                    result += leftCond + " " + binop + " " + rightCond;
-                }
+    // A begin ... end block: its statements, then a REM END line left without a newline, then a newline
+    private String translateAlgo(Ast.Stmt[] body) {
+        StringBuilder result = new StringBuilder();
+        for (Ast.Stmt statement : body) {
+            result.append(translateStatement(statement));
+        }
+        result.append(label(lineNumber) + " REM END");
+        lineNumber += 10;
+        return result.append('\n').toString();
+    }
 
-                break;
+    private String translateStatement(Ast.Stmt statement) {
+        String result = "";
 
-            case "FUNCTIONS":
-                for (SyntaxTree.Node child : node.children) {
-                    result += translateToBasic(child);
-                }
-                break;
-
-            case "DECL":
-                result += translateToBasic(node.children.get(0));
-                result += translateToBasic(node.children.get(1));
-                break;
-
-            case "BODY":
-                result += translateToBasic(node.children.get(0));
-                result += translateToBasic(node.children.get(1));
-                result += translateToBasic(node.children.get(2));
-                result += translateToBasic(node.children.get(3));
-                break;
-
-            case "EPILOG":
-
-                SyntaxTree.Node fnameReturnInfo = node.parent.parent.children.get(0).children.get(0).children.get(0);
-                SymbolTable.VariableInfo uniqueFname = symbolTable
-                        .get(node.parent.parent.children.get(0).children.get(1).children.get(0).unid);
-                if (fnameReturnInfo.value.equals("num")) {
-                    // result += lineNumber + " FN" + uniqueFname.uniqueName + " = M(0, f)\n";
-                } else {
-                    // result += lineNumber + " LET f = f - 1\n";
-                    // lineNumber += 10;
-                    result += lineNumber + " RETURN\n";
-                }
-                lineNumber += 10;
-                break;
-
-            case "LOCVARS":// check this
-                // result += lineNumber + " LET M(4, f) = 0\n";
-                // lineNumber += 10;
-                // result += lineNumber + " LET M(5, f) = 0\n";
-                // lineNumber += 10;
-                // result += lineNumber + " LET M(6, f) = 0\n";
-                // lineNumber += 10;
-                localVars = new ArrayList<>();
-                result += saveLocalVariables(node);
-                break;
-
-            case "HEADER":
-                // Extract function type and name
-                SymbolTable.VariableInfo fnameInformation = symbolTable.get(node.children.get(1).children.get(0).unid);
-                String functionName2 = fnameInformation.uniqueName;
-
-                if (node.children.get(0).children.get(0).value.equals("num")) {
-                    functionLineNumbers.put(functionName2, lineNumber);
-                    result += lineNumber + " REM DEF FN" + functionName2 + "(a1, a2, a3)\n";
-                    lineNumber += 10;
-                    // result += lineNumber + " LET f = f + 1\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " IF f > 2 THEN\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " LET f = f - 1\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " RETURN\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " END IF\n";
-                    // lineNumber += 10;
-
-                    // result += lineNumber + " LET M(1, f) = a1\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " LET M(2, f) = a2\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " LET M(3, f) = a3\n";
-                    // lineNumber += 10;
-                    paramVars = new ArrayList<>();
-                    result += linkParameterVariables(node);
-                } else if (node.children.get(0).children.get(0).value.equals("void")) {
-                    functionLineNumbers.put(functionName2, lineNumber);
-                    result += lineNumber + " REM DEF FN" + functionName2 + "(a1, a2, a3)\n";
-                    lineNumber += 10;
-                    // result += lineNumber + " LET f = f + 1\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " IF f > 2 THEN\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " LET f = f - 1\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " RETURN\n";
-                    // lineNumber += 10;
-                    // result += lineNumber + " END IF\n";
-                    // lineNumber += 10;
-                    paramVars = new ArrayList<>();
-                    result += linkParameterVariables(node);
-                }
-                break;
-            default:
-                result += "";
-                break;
+        if (statement instanceof Ast.Skip) {
+            result += label(lineNumber) + " REM DO NOTHING\n";
+            lineNumber += 10;
+        } else if (statement instanceof Ast.Halt) {
+            result += label(lineNumber) + " STOP\n";
+            lineNumber += 10;
+        } else if (statement instanceof Ast.Print) {
+            result += label(lineNumber) + " PRINT " + translateAtom(((Ast.Print) statement).value()) + "\n";
+            lineNumber += 10;
+        } else if (statement instanceof Ast.Return) {
+            // Return a value (store it in M(0, f))
+            String returnValue = translateAtom(((Ast.Return) statement).value());
+            result += label(lineNumber) + " LET f = f - 1\n";
+            lineNumber += 10;
+            result += label(lineNumber) + " LET M(0, f) = " + returnValue + "\n";
+            lineNumber += 10;
+            result += label(lineNumber) + " RETURN\n";
+            lineNumber += 10;
+        } else if (statement instanceof Ast.Input) {
+            result += label(lineNumber) + " INPUT " + translateVariable(((Ast.Input) statement).target()) + "\n";
+            lineNumber += 10;
+        } else if (statement instanceof Ast.Assign) {
+            Ast.Assign assign = (Ast.Assign) statement;
+            if (assign.value() instanceof Ast.Call) {
+                Ast.Call call = (Ast.Call) assign.value();
+                SymbolTable.VariableInfo variableInfo = call.function().symbol();
+                result += translateCallSequence(variableInfo, call);
+            }
+            SymbolTable.VariableInfo varInfo = assign.target().symbol();
+            String x = "";
+            if(assign.target().type().equals("t")){
+                x = name(varInfo) + "$";
+            }else{
+                x = name(varInfo);
+            }
+
+            result += label(lineNumber) + " LET " + x + " = " + translateExpression(assign.value()) + "\n";
+            lineNumber += 10;
+        } else if (statement instanceof Ast.CallStmt) {
+            result += translateCall(((Ast.CallStmt) statement).call());
+        } else if (statement instanceof Ast.Branch) {
+            Ast.Branch branch = (Ast.Branch) statement;
+            String code1 = translateCondition(branch.condition());
+            result += label(lineNumber) + " IF " + code1 + " THEN\n";
+            lineNumber += 10;
+            String code2 = translateAlgo(branch.thenBody());
+            result += code2;
+            result += label(lineNumber) + " ELSE\n";
+            lineNumber += 10;
+            String code3 = translateAlgo(branch.elseBody());
+            result += code3;
+            result += label(lineNumber) + " END IF\n";
+            lineNumber += 10;
+        }
+
+        return result;
+    }
+
+    private String translateExpression(Ast.Expr expression) {
+        if (expression instanceof Ast.Atom) {
+            return translateAtom((Ast.Atom) expression);
+        } else if (expression instanceof Ast.Call) {
+            return translateCall((Ast.Call) expression);
+        } else if (expression instanceof Ast.UnaryOp) {
+            Ast.UnaryOp op = (Ast.UnaryOp) expression;
+            String unopName = translateUnop(op.operator());
+            String arg = translateExpression(op.argument());
+            return unopName + "(" + arg + ")";
+        } else {
+            Ast.BinaryOp op = (Ast.BinaryOp) expression;
+            String leftArg = translateExpression(op.left());
+            String rightArg = translateExpression(op.right());
+            String binopName = translateBinop(op.operator());
+            return leftArg + " " + binopName + " " + rightArg;
+        }
+    }
+
+    private String translateAtom(Ast.Atom atom) {
+        if (atom instanceof Ast.Var) {
+            return translateVariable(((Ast.Var) atom).name());
+        }
+        return ((Ast.Const) atom).text();
+    }
+
+    private String translateVariable(Ast.Name name) {
+        SymbolTable.VariableInfo varInfo = name.symbol();
+        if(name.type().equals("t")){
+            return name(varInfo) + "$";
         }
+        return name(varInfo);
+    }
 
+    // A call on its own, or as the value of an assignment after translateCallSequence has run: a num
+    // function's result is read back from M(0, f)
+    private String translateCall(Ast.Call call) {
+        String result = "";
+        SymbolTable.VariableInfo variableInfo = call.function().symbol();
+        // if type is num
+        if (call.function().type().equals("n")) {
+            result += " M(0,f)\n";
+            lineNumber += 10;
+        } else {
+            result += translateCallSequence(variableInfo, call);
+        }
         return result;
     }
 
-    public String generateBasicCode(SyntaxTree.Node root) {
-        String basicCode = translateToBasic(root);
+    // Saves the caller's variables, pushes a frame with the arguments, calls and restores
+    private String translateCallSequence(SymbolTable.VariableInfo variableInfo, Ast.Call call) {
+        String result = "";
+        String functionName = name(variableInfo);
+        String arg1 = translateAtom(call.arguments()[0]);
+        String arg2 = translateAtom(call.arguments()[1]);
+        String arg3 = translateAtom(call.arguments()[2]);
+        result += saveCurrLocalVariables();
+        result += label(lineNumber) + " LET f = f + 1\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " IF f > " + maxIterations + " THEN\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " LET f = f - 1\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " RETURN\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " END IF\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " LET M(1, f) = " + arg1 + "\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " LET M(2, f) = " + arg2 + "\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " LET M(3, f) = " + arg3 + "\n";
+        lineNumber += 10;
+        result += label(lineNumber) + " GOSUB " + functionName + "\n";
+        lineNumber += 10;
+        if (!call.function().type().equals("n")) {
+            result += label(lineNumber) + " LET f = f - 1\n";
+            lineNumber += 10;
+        }
+        result += restoreLocalVariables();
+        return result;
+    }
+
+    private String translateCondition(Ast.Cond condition) {
+        if (condition instanceof Ast.Simple) {
+            Ast.Simple simple = (Ast.Simple) condition;
+            String leftSide = translateAtom(simple.left());
+            String rightSide = translateAtom(simple.right());
+            String relop = translateBinop(simple.operator());
+            return leftSide + " " + relop + " " + rightSide;
+        } else if (condition instanceof Ast.UnaryCond) {
+            Ast.UnaryCond composite = (Ast.UnaryCond) condition;
+            String unop = translateUnop(composite.operator());
+            String cond = translateCondition(composite.operand());
+            return unop + "(" + cond + ")";
+        } else {
+            Ast.BinaryCond composite = (Ast.BinaryCond) condition;
+            String leftCond = translateCondition(composite.left());
+            String rightCond = translateCondition(composite.right());
+            String binop = translateBinop(composite.operator());
+            return leftCond + " " + binop + " " + rightCond;
+        }
+    }
+
+    private String translateUnop(NodeKind operator) {
+        if (operator == NodeKind.SQRT) {
+            return "SQR";
+        } else if (operator == NodeKind.NOT) {
+            return "NOT";
+        }
+        return "";
+    }
+
+    private String translateBinop(NodeKind operator) {
+        switch (operator) {
+            case EQ:
+                return "=";
+            case GRT:
+                return ">";
+            case ADD:
+                return "+";
+            case SUB:
+                return "-";
+            case MUL:
+                return "*";
+            case DIV:
+                return "/";
+            default:
+                throw new IllegalArgumentException("Unsupported binary operator: " + operator.symbol);
+        }
+    }
+
+    public String generateBasicCode(Ast.Program program) {
+        String basicCode = translateProgram(program);
+        return resolveCalls(basicCode, functionLineNumbers);
+    }
+
+    // GOSUB targets are emitted as function names and only turned into line numbers here, once every
+    // function has been placed
+    static String resolveCalls(String basicCode, Map<String, Integer> functionLineNumbers) {
         // look for GOSUB then replace the function name with line numbers in the
         // basicCode like where the is a GOSUB in the line
 
@@ -407,28 +390,23 @@ public class TargetCodeGeneration {
 
     }
 
-    private void getLocalVariables(SyntaxTree.Node functionBody) {
-        // Traverse LOCVARS node to collect variable names
-        if (functionBody != null && functionBody.value.equals("LOCVARS")) {
-            for (SyntaxTree.Node child : functionBody.children) {
-                if (child.value.equals("VNAME")) {
-                    SymbolTable.VariableInfo varInfo = symbolTable.get(child.children.get(0).unid);
-                    localVars.add(varInfo.uniqueName);
-                }
-            }
+    private void getLocalVariables(Ast.VarDecl[] locals) {
+        for (Ast.VarDecl local : locals) {
+            SymbolTable.VariableInfo varInfo = local.name().symbol();
+            localVars.add(name(varInfo));
         }
     }
 
-    private String saveLocalVariables(SyntaxTree.Node functionBody) {
+    private String saveLocalVariables(Ast.VarDecl[] locals) {
         StringBuilder saveVars = new StringBuilder();
-        getLocalVariables(functionBody);
+        getLocalVariables(locals);
 
         for (int i = 0; i < localVars.size(); i++) {
-            saveVars.append(lineNumber + " LET " + localVars.get(i) + " = " + 0 + "\n");
+            saveVars.append(label(lineNumber) + " LET " + localVars.get(i) + " = " + 0 + "\n");
             lineNumber += 10;
         }
         for (int i = 0; i < localVars.size(); i++) {
-            saveVars.append(lineNumber + " LET M(" + (i + 4) + ", f) = " + localVars.get(i) + "\n");
+            saveVars.append(label(lineNumber) + " LET M(" + (i + 4) + ", f) = " + localVars.get(i) + "\n");
             lineNumber += 10;
         }
 
@@ -440,12 +418,12 @@ public class TargetCodeGeneration {
 
         //save parameters
         for (int i = 0; i < paramVars.size(); i++) {
-            saveVars.append(lineNumber + " LET M(" + (i + 1) + ", f) = " + paramVars.get(i) + "\n");
+            saveVars.append(label(lineNumber) + " LET M(" + (i + 1) + ", f) = " + paramVars.get(i) + "\n");
             lineNumber += 10;
         }                       
 
         for (int i = 0; i < localVars.size(); i++) {
-            saveVars.append(lineNumber + " LET M(" + (i + 4) + ", f) = " + localVars.get(i) + "\n");
+            saveVars.append(label(lineNumber) + " LET M(" + (i + 4) + ", f) = " + localVars.get(i) + "\n");
             lineNumber += 10;
         }
 
@@ -456,37 +434,33 @@ public class TargetCodeGeneration {
         StringBuilder restoreVars = new StringBuilder();
 
         for (int i = 0; i < paramVars.size(); i++) {
-            restoreVars.append(lineNumber + " LET " + paramVars.get(i) + " = M(" + (i + 1) + ", f)\n");
+            restoreVars.append(label(lineNumber) + " LET " + paramVars.get(i) + " = M(" + (i + 1) + ", f)\n");
             lineNumber += 10;
         }
         for (int i = 0; i < localVars.size(); i++) {
-            restoreVars.append(lineNumber + " LET " + localVars.get(i) + " = M(" + (i + 4) + ", f)\n");
+            restoreVars.append(label(lineNumber) + " LET " + localVars.get(i) + " = M(" + (i + 4) + ", f)\n");
             lineNumber += 10;
         }
 
         return restoreVars.toString();
     }
 
-    private String linkParameterVariables(SyntaxTree.Node functionBody) {
+    private String linkParameterVariables(Ast.Name[] parameters) {
         StringBuilder saveVars = new StringBuilder();
-        getParameterVariables(functionBody);
+        getParameterVariables(parameters);
 
         for (int i = 0; i < paramVars.size(); i++) {
-            saveVars.append(lineNumber + " LET " + paramVars.get(i) + " = M(" + (i + 1) + ", f)\n");
+            saveVars.append(label(lineNumber) + " LET " + paramVars.get(i) + " = M(" + (i + 1) + ", f)\n");
             lineNumber += 10;
         }
 
         return saveVars.toString();
     }
 
-    private void getParameterVariables(SyntaxTree.Node functionBody) {
-        if (functionBody != null && functionBody.value.equals("HEADER")) {
-            for (SyntaxTree.Node child : functionBody.children) {
-                if (child.value.equals("VNAME")) {
-                    SymbolTable.VariableInfo varInfo = symbolTable.get(child.children.get(0).unid);
-                    paramVars.add(varInfo.uniqueName);
-                }
-            }
+    private void getParameterVariables(Ast.Name[] parameters) {
+        for (Ast.Name parameter : parameters) {
+            SymbolTable.VariableInfo varInfo = parameter.symbol();
+            paramVars.add(name(varInfo));
         }
     }
 
@@ -1,17 +1,25 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class Token {
     private String token;
-    private static int idCounter = 1;
     private String tokenClass;
     private int id;
+    // source slice for tokens scanned straight out of a buffer; the text is only built on first use
+    private ByteBuffer source;
+    private int offset;
+    private int length;
 
-    public Token(String t, String c){
+    public Token(int id,String t, String c){
         this.token = t;
         this.tokenClass = c;
-        this.id = Token.idCounter++;
+        this.id = id;
     }
 
-    public Token(int id,String t, String c){
-        this.token = t;
+    public Token(int id, ByteBuffer source, int offset, int length, String c){
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
         this.tokenClass = c;
         this.id = id;
     }
@@ -25,12 +33,17 @@ public class Token {
     }
 
     public String getToken(){
+        if (this.token == null) {
+            byte[] bytes = new byte[this.length];
+            this.source.get(this.offset, bytes);
+            this.token = new String(bytes, StandardCharsets.ISO_8859_1); // scanned words are plain ASCII
+        }
         return this.token;
     }
 
     @Override
     public String toString() {
-        return "Token{id=" + this.id + " class='" + tokenClass + '\'' + ", token='" + token + '\'' + '}';
+        return "Token{id=" + this.id + " class='" + tokenClass + '\'' + ", token='" + getToken() + '\'' + '}';
     }
 
 
@@ -0,0 +1,91 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary alternative to tokens.xml:
+//   "RTOK", version byte
+//   varint word count, then every distinct word as varint length + UTF-8 bytes
+//   varint token count, then per token: zigzag varint id delta, one class byte, varint word index
+public class TokenStreamFile {
+    public static final String MAGIC = "RTOK";
+    private static final int VERSION = 1;
+    private static final String[] TOKEN_CLASSES = { "reserved_keyword", "V_", "F_", "T_", "N_", "$" };
+
+    private TokenStreamFile() {
+    }
+
+    public static void write(List<Token> tokens, String filePath) throws IOException {
+        Map<String, Integer> wordIndex = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        int[] wordOf = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            String word = tokens.get(i).getToken();
+            Integer index = wordIndex.get(word);
+            if (index == null) {
+                index = words.size();
+                wordIndex.put(word, index);
+                words.add(word);
+            }
+            wordOf[i] = index;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            BinaryFormat.writeMagic(out, MAGIC, VERSION);
+            BinaryFormat.writeVarInt(out, words.size());
+            for (String word : words) {
+                BinaryFormat.writeString(out, word);
+            }
+
+            BinaryFormat.writeVarInt(out, tokens.size());
+            int previousId = 0;
+            for (int i = 0; i < tokens.size(); i++) {
+                Token t = tokens.get(i);
+                BinaryFormat.writeSignedVarInt(out, t.getId() - previousId);
+                out.writeByte(classCode(t.getTokenClass()));
+                BinaryFormat.writeVarInt(out, wordOf[i]);
+                previousId = t.getId();
+            }
+        }
+    }
+
+    public static List<Token> read(String filePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            BinaryFormat.readMagic(in, MAGIC, VERSION);
+            String[] words = new String[BinaryFormat.readVarInt(in)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = BinaryFormat.readString(in);
+            }
+
+            int count = BinaryFormat.readVarInt(in);
+            List<Token> tokens = new ArrayList<>(count);
+            int id = 0;
+            for (int i = 0; i < count; i++) {
+                id += BinaryFormat.readSignedVarInt(in);
+                int classCode = in.readUnsignedByte();
+                int word = BinaryFormat.readVarInt(in);
+                if (classCode >= TOKEN_CLASSES.length || word >= words.length) {
+                    throw new IOException("Corrupt token " + i + " in " + filePath);
+                }
+                tokens.add(new Token(id, words[word], TOKEN_CLASSES[classCode]));
+            }
+            return tokens;
+        }
+    }
+
+    private static int classCode(String tokenClass) {
+        for (int i = 0; i < TOKEN_CLASSES.length; i++) {
+            if (TOKEN_CLASSES[i].equals(tokenClass)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown token class: " + tokenClass);
+    }
+}
@@ -1,108 +1,118 @@
-import java.util.Map;
+// The type rules, applied node by node by ScopeAnalysis once the names a node uses are bound
 public class TypeChecker {
-    private Map<Integer, SymbolTable.VariableInfo> symbolTable;
-    public TypeChecker(Map<Integer, SymbolTable.VariableInfo> symbolTable) {
-        this.symbolTable = symbolTable;
-    }   
-    private String typeOf(SyntaxTree.Node node) throws Exception {
+    private final SyntaxArena tree;
 
-        // System.out.println("Node: " + node.value);
+    TypeChecker(SyntaxArena tree) {
+        this.tree = tree;
+    }
+
+    // The type code of node: worked out once, from the types of its children, and kept in the tree
+    String typeOf(int node) throws Exception {
+        if (tree.type(node) == null) {
+            tree.setType(node, computeType(node));
+        }
+        return tree.type(node);
+    }
 
-        if (node.value.equals("VTYP")) {
-            if (node.children.get(0).value.equals("num")) {
+    private String computeType(int node) throws Exception {
+
+        // System.out.println("Node: " + tree.value(node));
+
+        if (tree.kind(node) == NodeKind.VTYP) {
+            if (tree.kind(tree.child(node, 0)) == NodeKind.NUM) {
                 return "n";
-            } else if (node.children.get(0).value.equals("text")) {
+            } else if (tree.kind(tree.child(node, 0)) == NodeKind.TEXT) {
                 return "t";
             } else {
                 throw new Exception("Invalid type.");
             }
-        } else if (node.value.equals("FTYP")) {
-            if (node.children.get(0).value.equals("num")) {
+        } else if (tree.kind(node) == NodeKind.FTYP) {
+            if (tree.kind(tree.child(node, 0)) == NodeKind.NUM) {
                 return "n";
-            } else if (node.children.get(0).value.equals("void")) {
+            } else if (tree.kind(tree.child(node, 0)) == NodeKind.VOID) {
                 return "v";
             } else {
                 throw new Exception("Invalid type.");
             }
 
-        } else if (node.value.equals("ATOMIC")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("VNAME")) {
-            int varUnid = node.children.get(0).unid;
-            SymbolTable.VariableInfo variableInfo = symbolTable.get(varUnid);
+        } else if (tree.kind(node) == NodeKind.ATOMIC) {
+            return typeOf(tree.child(node, 0));
+        } else if (tree.kind(node) == NodeKind.VNAME) {
+            int varUnid = tree.unid(tree.child(node, 0));
+            SymbolTable.VariableInfo variableInfo = tree.binding(tree.child(node, 0));
             if (variableInfo == null) {
-                throw new Exception("Variable '" + node.children.get(0).value + " ID: " + varUnid + "' not declared.");
+                throw new Exception("Variable '" + tree.value(tree.child(node, 0)) + " ID: " + varUnid + "' not declared.");
             }
-            // System.out.println("Variable '" + node.children.get(0).value + " ID: " + varUnid
+            // System.out.println("Variable '" + tree.value(tree.child(node, 0)) + " ID: " + varUnid
             //         + "' is declared with type " + variableInfo.type);
             return variableInfo.type;
-        } else if (node.value.equals("CONST")) {
+        } else if (tree.kind(node) == NodeKind.CONST) {
             try {
-                Integer.parseInt(node.children.get(0).value);
+                Integer.parseInt(tree.value(tree.child(node, 0)));
                 return "n";
             } catch (NumberFormatException e) {
                 return "t";
             }
-        } else if (node.value.equals("FNAME")) {
-            int funUnid = node.children.get(0).unid;
-            SymbolTable.VariableInfo functionInfo = symbolTable.get(funUnid);
+        } else if (tree.kind(node) == NodeKind.FNAME) {
+            int funUnid = tree.unid(tree.child(node, 0));
+            SymbolTable.VariableInfo functionInfo = tree.binding(tree.child(node, 0));
             if (functionInfo == null) {
-                throw new Exception("Function '" + node.children.get(0).value + " ID: " + funUnid + "' not declared.");
+                throw new Exception("Function '" + tree.value(tree.child(node, 0)) + " ID: " + funUnid + "' not declared.");
             }
-            // System.out.println("Function '" + node.children.get(0).value + " ID: " + funUnid
+            // System.out.println("Function '" + tree.value(tree.child(node, 0)) + " ID: " + funUnid
             //         + "' is declared with type " + functionInfo.type);
             return functionInfo.type;
 
-        } else if (node.value.equals("TERM")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("CALL")) {
-            String t1 = typeOf(node.children.get(2));
-            String t2 = typeOf(node.children.get(4));
-            String t3 = typeOf(node.children.get(6));
+        } else if (tree.kind(node) == NodeKind.TERM) {
+            return typeOf(tree.child(node, 0));
+        } else if (tree.kind(node) == NodeKind.CALL) {
+            String t1 = typeOf(tree.child(node, 2));
+            String t2 = typeOf(tree.child(node, 4));
+            String t3 = typeOf(tree.child(node, 6));
             if (t1.equals(t2) && t2.equals(t3) && t1.equals("n")) {
-                String t4 = typeOf(node.children.get(0));
+                String t4 = typeOf(tree.child(node, 0));
 
                 return t4;
             } else {
                 return "u";
             }
-        } else if (node.value.equals("UNOP")) {
-            if (node.children.get(0).value.equals("sqrt")) {
+        } else if (tree.kind(node) == NodeKind.UNOP) {
+            if (tree.kind(tree.child(node, 0)) == NodeKind.SQRT) {
                 return "n";
-            } else if (node.children.get(0).value.equals("not")) {
+            } else if (tree.kind(tree.child(node, 0)) == NodeKind.NOT) {
                 return "b";
             } else {
                 throw new Exception("Invalid type.");
             }
 
-        } else if (node.value.equals("BINOP")) {
-            switch (node.children.get(0).value) {
-                case "add":
+        } else if (tree.kind(node) == NodeKind.BINOP) {
+            switch (tree.kind(tree.child(node, 0))) {
+                case ADD:
                     return "n";
-                case "sub":
+                case SUB:
                     return "n";
-                case "mul":
+                case MUL:
                     return "n";
-                case "div":
+                case DIV:
                     return "n";
-                case "eq":
+                case EQ:
                     return "c";
-                case "grt":
+                case GRT:
                     return "c";
-                case "or":
+                case OR:
                     return "b";
-                case "and":
+                case AND:
                     return "b";
                 default:
                     throw new Exception("Invalid type.");
             }
 
-        } else if (node.value.equals("ARG")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("OP")) {
-            if (node.children.get(0).value.equals("UNOP")) {
-                String t1 = typeOf(node.children.get(0));
-                String t2 = typeOf(node.children.get(2));
+        } else if (tree.kind(node) == NodeKind.ARG) {
+            return typeOf(tree.child(node, 0));
+        } else if (tree.kind(node) == NodeKind.OP) {
+            if (tree.kind(tree.child(node, 0)) == NodeKind.UNOP) {
+                String t1 = typeOf(tree.child(node, 0));
+                String t2 = typeOf(tree.child(node, 2));
                 if (t1.equals(t2) && t1.equals("n")) {
                     return "n";
                 } else if (t1.equals(t2) && t1.equals("b")) {
@@ -110,10 +120,10 @@ public class TypeChecker {
                 } else {
                     return "u";
                 }
-            } else if (node.children.get(0).value.equals("BINOP")) {
-                String t0 = typeOf(node.children.get(0));
-                String t1 = typeOf(node.children.get(2));
-                String t2 = typeOf(node.children.get(4));
+            } else if (tree.kind(tree.child(node, 0)) == NodeKind.BINOP) {
+                String t0 = typeOf(tree.child(node, 0));
+                String t1 = typeOf(tree.child(node, 2));
+                String t2 = typeOf(tree.child(node, 4));
                 if (t0.equals(t1) && t1.equals(t2) && t0.equals("n")) {
                     return "n";
                 } else if (t0.equals(t1) && t1.equals(t2) && t0.equals("b")) {
@@ -127,12 +137,12 @@ public class TypeChecker {
                 return "u";
             }
 
-        } else if (node.value.equals("COND")) {
-            return typeOf(node.children.get(0));
-        } else if (node.value.equals("SIMPLE")) {
-            String t0 = typeOf(node.children.get(0));
-            String t1 = typeOf(node.children.get(2));
-            String t2 = typeOf(node.children.get(4));
+        } else if (tree.kind(node) == NodeKind.COND) {
+            return typeOf(tree.child(node, 0));
+        } else if (tree.kind(node) == NodeKind.SIMPLE) {
+            String t0 = typeOf(tree.child(node, 0));
+            String t1 = typeOf(tree.child(node, 2));
+            String t2 = typeOf(tree.child(node, 4));
             if (t0.equals(t1) && t1.equals(t2) && t0.equals("b")) {
                 return "b";
             } else if (t0.equals("c") && t1.equals(t2) && t1.equals("n")) {
@@ -141,19 +151,19 @@ public class TypeChecker {
                 return "u";
             }
 
-        } else if (node.value.equals("COMPOSIT")) {
-            if (node.children.get(0).value.equals("BINOP")) {
-                String t0 = typeOf(node.children.get(0));
-                String t1 = typeOf(node.children.get(2));
-                String t2 = typeOf(node.children.get(4));
+        } else if (tree.kind(node) == NodeKind.COMPOSIT) {
+            if (tree.kind(tree.child(node, 0)) == NodeKind.BINOP) {
+                String t0 = typeOf(tree.child(node, 0));
+                String t1 = typeOf(tree.child(node, 2));
+                String t2 = typeOf(tree.child(node, 4));
                 if (t0.equals(t1) && t1.equals(t2) && t0.equals("b")) {
                     return "b";
                 } else {
                     return "u";
                 }
-            } else if (node.children.get(0).value.equals("UNOP")) {
-                String t0 = typeOf(node.children.get(0));
-                String t1 = typeOf(node.children.get(2));
+            } else if (tree.kind(tree.child(node, 0)) == NodeKind.UNOP) {
+                String t0 = typeOf(tree.child(node, 0));
+                String t1 = typeOf(tree.child(node, 2));
                 if (t0.equals(t1) && t0.equals("b")) {
                     return "b";
                 } else {
@@ -167,131 +177,119 @@ public class TypeChecker {
         }
     }
 
-    public boolean typeCheck(SyntaxTree.Node node) throws Exception {
+    // Whether the check of node itself needs the type of a called function, which is only known once the
+    // call has been resolved: a call command, or an assignment of a call's result
+    boolean needsResolvedCalls(int node) {
+        if (tree.kind(node) == NodeKind.COMMAND) {
+            return tree.kind(tree.child(node, 0)) == NodeKind.CALL;
+        }
+        return tree.kind(node) == NodeKind.ASSIGN && tree.childCount(node) == 3
+                && tree.kind(tree.child(tree.child(node, 2), 0)) == NodeKind.CALL;
+    }
+
+    // The checks that belong to node itself; ScopeAnalysis checks its children as it binds their names
+    boolean checkNode(int node) throws Exception {
         boolean result = true;
-        switch (node.value) {
-            case "PROG": {
-                result = (typeCheck(node.children.get(1)) && typeCheck(node.children.get(2))
-                        && typeCheck(node.children.get(3)));
-                break;
-            }
-            case "GLOBVARS": {
-                if (node.children.size() == 1) {
-                    result = true;
-                } else {
-                    String type = typeOf(node.children.get(0));
-                    SymbolTable.VariableInfo v = symbolTable.get(node.children.get(1).children.get(0).unid);
+        switch (tree.kind(node)) {
+            case GLOBVARS: {
+                if (tree.childCount(node) > 1) {
+                    String type = typeOf(tree.child(node, 0));
+                    SymbolTable.VariableInfo v = tree.binding(tree.child(tree.child(node, 1), 0));
                     if (v == null) {
-                        throw new Exception("Variable " + node.children.get(1).children.get(0).value + " ID: "
-                                + node.children.get(1).children.get(0).unid + " not declared.");
+                        throw new Exception("Variable " + tree.value(tree.child(tree.child(node, 1), 0)) + " ID: "
+                                + tree.unid(tree.child(tree.child(node, 1), 0)) + " not declared.");
                     }
                     v.type = type;
-                    result = typeCheck(node.children.get(3));
+                    tree.setType(tree.child(node, 1), type);
                 }
                 break;
             }
-            case "LOCVARS": {
-                String t1 = typeOf(node.children.get(0));
-                SymbolTable.VariableInfo v = symbolTable.get(node.children.get(1).children.get(0).unid);
+            case LOCVARS: {
+                String t1 = typeOf(tree.child(node, 0));
+                SymbolTable.VariableInfo v = tree.binding(tree.child(tree.child(node, 1), 0));
                 if (v == null) {
-                    throw new Exception("Variable " + node.children.get(1).children.get(0).value + " ID: "
-                            + node.children.get(1).children.get(0).unid + " not declared.");
+                    throw new Exception("Variable " + tree.value(tree.child(tree.child(node, 1), 0)) + " ID: "
+                            + tree.unid(tree.child(tree.child(node, 1), 0)) + " not declared.");
                 }
                 v.type = t1;
+                tree.setType(tree.child(node, 1), t1);
 
-                String t2 = typeOf(node.children.get(3));
-                SymbolTable.VariableInfo v2 = symbolTable.get(node.children.get(4).children.get(0).unid);
+                String t2 = typeOf(tree.child(node, 3));
+                SymbolTable.VariableInfo v2 = tree.binding(tree.child(tree.child(node, 4), 0));
                 if (v2 == null) {
-                    throw new Exception("Variable " + node.children.get(4).children.get(0).value + " ID: "
-                            + node.children.get(4).children.get(0).unid + " not declared.");
+                    throw new Exception("Variable " + tree.value(tree.child(tree.child(node, 4), 0)) + " ID: "
+                            + tree.unid(tree.child(tree.child(node, 4), 0)) + " not declared.");
                 }
                 v2.type = t2;
+                tree.setType(tree.child(node, 4), t2);
 
-                String t3 = typeOf(node.children.get(6));
-                SymbolTable.VariableInfo v3 = symbolTable.get(node.children.get(7).children.get(0).unid);
+                String t3 = typeOf(tree.child(node, 6));
+                SymbolTable.VariableInfo v3 = tree.binding(tree.child(tree.child(node, 7), 0));
                 if (v3 == null) {
-                    throw new Exception("Variable " + node.children.get(7).children.get(0).value + " ID: "
-                            + node.children.get(7).children.get(0).unid + " not declared.");
+                    throw new Exception("Variable " + tree.value(tree.child(tree.child(node, 7), 0)) + " ID: "
+                            + tree.unid(tree.child(tree.child(node, 7), 0)) + " not declared.");
                 }
                 v3.type = t3;
+                tree.setType(tree.child(node, 7), t3);
 
                 result = true;
                 break;
             }
-            case "COMMAND": {
-                if (node.children.get(0).value.equals("skip")) {
+            case COMMAND: {
+                if (tree.kind(tree.child(node, 0)) == NodeKind.SKIP) {
                     result = true;
-                } else if (node.children.get(0).value.equals("halt")) {
+                } else if (tree.kind(tree.child(node, 0)) == NodeKind.HALT) {
                     result = true;
-                } else if (node.children.get(0).value.equals("print")) {
-                    String t1 = typeOf(node.children.get(1));
+                } else if (tree.kind(tree.child(node, 0)) == NodeKind.PRINT) {
+                    String t1 = typeOf(tree.child(node, 1));
                     if (t1.equals("n") || t1.equals("t")) {
                         result = true;
                     } else {
                         result = false;
                     }
-                } else if (node.children.get(0).value.equals("return")) {
-                    // tree-crawl to find function type
-                    SyntaxTree.Node temp = node;
-                    while (!temp.value.equals("FUNCTIONS")) {
-                        temp = temp.parent;
+                } else if (tree.kind(tree.child(node, 0)) == NodeKind.RETURN) {
+                    // the enclosing function's return type, already typed by its HEADER
+                    if (tree.function(node) == SyntaxArena.NONE) {
+                        return false;
                     }
-                    String t1 = typeOf(node.children.get(1));
+                    String t1 = typeOf(tree.child(node, 1));
 
-                    String t2 = typeOf(temp.children.get(0).children.get(0).children.get(0));
+                    String t2 = typeOf(tree.child(tree.child(tree.function(node), 0), 0));
                     if (t1.equals(t2) && t1.equals("n")) {
                         result = true;
                     } else {
                         result = false;
                     }
 
-                } else if (node.children.get(0).value.equals("ASSIGN")) {
-                    result = typeCheck(node.children.get(0));
-                } else if (node.children.get(0).value.equals("CALL")) {
-                    String t1 = typeOf(node.children.get(0));
+                } else if (tree.kind(tree.child(node, 0)) == NodeKind.CALL) {
+                    String t1 = typeOf(tree.child(node, 0));
                     if (t1.equals("v")) {
                         result = true;
                     } else {
                         result = false;
                     }
-                } else if (node.children.get(0).value.equals("BRANCH")) {
-                    result = typeCheck(node.children.get(0));
                 }
                 break;
             }
-            case "ALGO": {
-                result = typeCheck(node.children.get(1));
-                break;
-            }
-            case "INSTRUC": {
-                if (node.children.size() == 1) {
-                    result = true;
-                } else {
-                    result = (typeCheck(node.children.get(0)) && typeCheck(node.children.get(2)));
-                }
-                break;
-            }
-            case "BRANCH": {
-                String t1 = typeOf(node.children.get(1));
-                if (t1.equals("b")) {
-                    result = typeCheck(node.children.get(3)) && typeCheck(node.children.get(5));
-                } else {
+            case BRANCH: {
+                String t1 = typeOf(tree.child(node, 1));
+                if (!t1.equals("b")) {
                     result = false;
                 }
                 break;
 
             }
-            case "ASSIGN": {
-                if (node.children.size() == 2) {
-                    String t1 = typeOf(node.children.get(0));
+            case ASSIGN: {
+                if (tree.childCount(node) == 2) {
+                    String t1 = typeOf(tree.child(node, 0));
                     if (t1.equals("n")) {
                         result = true;
                     } else {
                         result = false;
                     }
                 } else {
-                    String t1 = typeOf(node.children.get(0));
-                    String t2 = typeOf(node.children.get(2));
+                    String t1 = typeOf(tree.child(node, 0));
+                    String t2 = typeOf(tree.child(node, 2));
                     if (t1.equals(t2)) {
                         result = true;
                     } else {
@@ -301,46 +299,29 @@ public class TypeChecker {
                 break;
 
             }
-            case "FUNCTIONS": {
-                if (node.children.size() == 1) {
-                    result = true;
-                } else {
-                    result = (typeCheck(node.children.get(0)) && typeCheck(node.children.get(1)));
-                }
-                break;
-            }
-            case "DECL": {
-
-                result = (typeCheck(node.children.get(0)) && typeCheck(node.children.get(1)));
-                break;
-
-            }
-            case "HEADER": {
-                String t1 = typeOf(node.children.get(0));
-                SymbolTable.VariableInfo v = symbolTable.get(node.children.get(1).children.get(0).unid);
+            case HEADER: {
+                String t1 = typeOf(tree.child(node, 0));
+                SymbolTable.VariableInfo v = tree.binding(tree.child(tree.child(node, 1), 0));
                 if (v == null) {
-                    throw new Exception("Variable " + node.children.get(1).children.get(0).value + " ID: "
-                            + node.children.get(1).children.get(0).unid + " not declared.");
+                    throw new Exception("Variable " + tree.value(tree.child(tree.child(node, 1), 0)) + " ID: "
+                            + tree.unid(tree.child(tree.child(node, 1), 0)) + " not declared.");
                 }
                 v.type = t1;
-                String t2 = typeOf(node.children.get(3));
-                String t3 = typeOf(node.children.get(5));
-                String t4 = typeOf(node.children.get(7));
+                tree.setType(tree.child(node, 1), t1);
+                String t2 = typeOf(tree.child(node, 3));
+                String t3 = typeOf(tree.child(node, 5));
+                String t4 = typeOf(tree.child(node, 7));
 
                 if (t1.equals("n")) {
-                    // tree-crawl to find return type
-                    SyntaxTree.Node temp = node;
-                    while (!temp.value.equals("DECL")) {
-                        temp = temp.parent;
-                    }
-                    SyntaxTree.Node temp2 = temp.children.get(1).children.get(2).children.get(1);
-                    while (temp2.children.size() != 1) {
-                        if (temp2.children.get(0).children.get(0).value.equals("return")) {
+                    // look for a return statement in the function body
+                    int temp2 = tree.child(tree.child(tree.child(tree.function(node), 1), 2), 1);
+                    while (tree.childCount(temp2) != 1) {
+                        if (tree.kind(tree.child(tree.child(temp2, 0), 0)) == NodeKind.RETURN) {
                             break;
                         }
-                        temp2 = temp2.children.get(2);
+                        temp2 = tree.child(temp2, 2);
                     }
-                    if (temp2.children.size() == 1)
+                    if (tree.childCount(temp2) == 1)
                         result = false;
                     else {
 
@@ -359,57 +340,9 @@ public class TypeChecker {
                 }
                 break;
             }
-            case "BODY": {
-                result = typeCheck(node.children.get(0)) && typeCheck(node.children.get(1))
-                        && typeCheck(node.children.get(2)) && typeCheck(node.children.get(3))
-                        && typeCheck(node.children.get(4));
-                break;
-            }
-            case "SUBFUNCS": {
-                result = typeCheck(node.children.get(0));
-                break;
-            }
-            case "PROLOG": {
-                result = true;
-                break;
-            }
-            case "EPILOG": {
-                result = true;
-                break;
-            }
             default:
                 break;
         }
-
-        for (SyntaxTree.Node child : node.children) {
-            result = result && typeCheck(child);
-        }
-
-
         return result;
-
-    }
-
-    public Map<Integer, SymbolTable.VariableInfo> getLargeSymbolTable() {
-        return this.symbolTable;
-    }
-
-    public String printSymbolTable() {
-        String res = "";
-        if (symbolTable.isEmpty()) {
-            res += "  No variables in this scope.\n";
-            //System.out.println("  No variables in this scope.");
-        } else {
-            res += "----LARGE SYMBOL TABLE----\n";
-            //System.out.println("----LARGE SYMBOL TABLE----");
-            for (Map.Entry<Integer, SymbolTable.VariableInfo> entry : symbolTable.entrySet()) {
-                res += "  Variable: " + entry.getKey() + " -> Unique Name: "
-                        + entry.getValue().uniqueName + ", UNID: " + entry.getValue().unid + ", Original Name: "
-                        + entry.getValue().originalName+ ", TYPE: " + entry.getValue().type + "\n";
-              
-            }
-        }
-        return res;
     }
-    
 }